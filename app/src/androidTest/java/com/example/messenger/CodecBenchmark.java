@@ -0,0 +1,91 @@
+package com.example.messenger;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.messenger.data.models.Chat;
+import com.example.messenger.data.models.ChatCodec;
+import com.example.messenger.data.models.Message;
+import com.example.messenger.data.models.MessageCodec;
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the reflective mapper behind {@code DataSnapshot.getValue(Class)}
+ * with the generated codecs on the same raw maps.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CodecBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static Map<String, Object> chatMap() {
+        Map<String, Object> blocked = new HashMap<>();
+        blocked.put("uid_blocked", true);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("user1", "uid_first");
+        map.put("user2", "uid_second");
+        map.put("lastActivity", "12:30");
+        map.put("blockedUsers", blocked);
+        return map;
+    }
+
+    private static Map<String, Object> messageMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ownerId", "uid_first");
+        map.put("text", "Hello there");
+        map.put("date", "12:30");
+        map.put("timestamp", 1700000000000L);
+        map.put("fileUrl", "https://res.cloudinary.com/demo/image/upload/sample.jpg");
+        map.put("fileType", "image");
+        map.put("fileName", "sample.jpg");
+        map.put("fileSize", 48213L);
+        map.put("read", false);
+        return map;
+    }
+
+    @Test
+    public void chatReflectionMapper() {
+        Map<String, Object> map = chatMap();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            CustomClassMapper.convertToCustomClass(map, Chat.class);
+        }
+    }
+
+    @Test
+    public void chatGeneratedCodec() {
+        Map<String, Object> map = chatMap();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            ChatCodec.fromMap("uid_first_uid_second", map);
+        }
+    }
+
+    @Test
+    public void messageReflectionMapper() {
+        Map<String, Object> map = messageMap();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            CustomClassMapper.convertToCustomClass(map, Message.class);
+        }
+    }
+
+    @Test
+    public void messageGeneratedCodec() {
+        Map<String, Object> map = messageMap();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MessageCodec.fromMap("-NmsgKey", map);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.messenger;
+
+import android.app.Application;
+
+import com.cloudinary.android.MediaManager;
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.media.UploadQueue;
+import com.example.messenger.data.sync.ForegroundSync;
+import com.example.messenger.data.sync.SyncPolicy;
+import com.google.firebase.database.FirebaseDatabase;
+
+public class MessengerApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Must run before anything else touches FirebaseDatabase.
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        database.setPersistenceCacheSizeBytes(AppConfig.Sync.DISK_CACHE_SIZE_BYTES);
+        database.setPersistenceEnabled(true);
+
+        SyncPolicy.getInstance().install();
+        ForegroundSync.getInstance().install(this);
+
+        // Queued uploads may resume here without any activity being created.
+        MediaManager.init(this, AppConfig.getCloudinaryConfig());
+        UploadQueue.getInstance(this).resumePending();
+    }
+}
@@ -35,6 +35,38 @@ public class AppConfig {
         public static final int MAX_PASSWORD_LENGTH = 30;
     }
 
+    // ==================== MESSAGES ====================
+
+    public static class Messages {
+        public static final int PAGE_SIZE = 50;
+        public static final int LOAD_MORE_THRESHOLD = 5;
+        public static final long READ_RECEIPT_DEBOUNCE_MS = 1000;
+        public static final int CACHED_MESSAGES_PER_CHAT = 2000;
+    }
+
+    // ==================== USERS ====================
+
+    public static class Users {
+        public static final int PROFILE_CACHE_SIZE = 200;
+        public static final int DIRECTORY_PAGE_SIZE = 30;
+        public static final int DIRECTORY_LOAD_MORE_THRESHOLD = 5;
+    }
+
+    // ==================== SEARCH ====================
+
+    public static class Search {
+        public static final long DEBOUNCE_MS = 150;
+    }
+
+    // ==================== SYNC ====================
+
+    public static class Sync {
+        public static final long DISK_CACHE_SIZE_BYTES = 50 * 1024 * 1024;  // 50 MB
+        public static final int KEEP_SYNCED_CHATS = 10;
+        public static final long BATCH_INTERVAL_MINUTES = 15;
+        public static final long BATCH_TIMEOUT_SECONDS = 30;
+    }
+
     // ==================== FILE UPLOAD ====================
 
     public static class FileUpload {
@@ -43,7 +75,19 @@ public class AppConfig {
         public static final long MAX_VIDEO_SIZE = 50 * 1024 * 1024;      // 50 MB
         public static final long MAX_VOICE_SIZE = 5 * 1024 * 1024;       // 5 MB
         public static final long MAX_DOCUMENT_SIZE = 20 * 1024 * 1024;   // 20 MB
+        public static final int IMAGE_MAX_EDGE = 1600;                   // px, long edge
+        public static final int IMAGE_QUALITY = 82;
+        public static final int CHUNK_SIZE = 6 * 1024 * 1024;            // 6 MB, Cloudinary minimum is 5 MB
+        public static final int MAX_UPLOAD_ATTEMPTS = 10;
+        public static final long RETRY_BACKOFF_SECONDS = 15;
+        public static final long SEND_TIMEOUT_SECONDS = 30;
+    }
+
+    // ==================== MEDIA ====================
 
+    public static class Media {
+        public static final int BUBBLE_WIDTH_DP = 250;
+        public static final int[] WIDTH_BUCKETS = {240, 360, 480, 720, 960, 1280};
     }
 
     // ==================== NOTIFICATIONS ====================
@@ -53,6 +97,11 @@ public class AppConfig {
         public static final String CHANNEL_NAME = "Message";
         public static final String FOREGROUND_CHANNEL_ID = "foreground_service_channel";
         public static final int FOREGROUND_SERVICE_ID = 1;
+        public static final int SUMMARY_ID = 2;
+        public static final String GROUP_KEY = "messages_group";
+        public static final int MESSAGES_PER_CHAT = 6;
+        public static final long UPDATE_WINDOW_MS = 1000;
+        public static final long ALERT_WINDOW_MS = 10 * 1000;
     }
 
 
@@ -0,0 +1,65 @@
+package com.example.messenger.data.chats;
+
+import com.example.messenger.data.models.ChatListItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat rows in display order with a chatId -> position index, so a single row
+ * can be found and replaced without scanning the list.
+ */
+public class ChatList {
+
+    private final List<ChatListItem> items = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Map<String, String> chatIdsByPartner = new HashMap<>();
+
+    public void setItems(List<ChatListItem> newItems) {
+        items.clear();
+        positions.clear();
+        chatIdsByPartner.clear();
+
+        for (ChatListItem item : newItems) {
+            positions.put(item.chatId, items.size());
+            chatIdsByPartner.put(item.otherUid, item.chatId);
+            items.add(item);
+        }
+    }
+
+    public List<ChatListItem> getItems() {
+        return items;
+    }
+
+    public ChatListItem get(int position) {
+        return items.get(position);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public int indexOf(String chatId) {
+        Integer position = chatId != null ? positions.get(chatId) : null;
+        return position != null ? position : -1;
+    }
+
+    public int indexOfPartner(String otherUid) {
+        return indexOf(otherUid != null ? chatIdsByPartner.get(otherUid) : null);
+    }
+
+    // Returns the position of the replaced row, or -1 if the chat is not in this list.
+    public int replace(ChatListItem item) {
+        int position = indexOf(item.chatId);
+        if (position != -1) {
+            items.set(position, item);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.messenger.data.chats;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Who the user already has a chat with: {@code ChatPartners/{uid}/{otherUid} = chatId}.
+ * An instance mirrors one user's partners into an in-memory set, loaded once and then
+ * kept up to date child by child, so membership checks never touch chat or message data.
+ */
+public class ChatPartners {
+
+    private static final String TAG = "ChatPartners";
+
+    public static final String ROOT = "ChatPartners";
+
+    private static final String PREFS_NAME = "chat_partners";
+    private static final String KEY_BACKFILLED = "backfilled_";
+
+    public interface Listener {
+        void onLoaded();
+
+        void onPartnerAdded(String otherUid);
+    }
+
+    public static DatabaseReference partnersRef(String uid) {
+        return FirebaseDatabase.getInstance().getReference(ROOT).child(uid);
+    }
+
+    public static void putPair(Map<String, Object> updates, String chatId, String user1, String user2) {
+        putPartner(updates, user1, user2, chatId);
+        putPartner(updates, user2, user1, chatId);
+    }
+
+    public static void putPartner(Map<String, Object> updates, String uid, String otherUid, String chatId) {
+        updates.put(ROOT + "/" + uid + "/" + otherUid, chatId);
+    }
+
+    /**
+     * One-time migration for chats created before the index existed:
+     * fills the user's own partner set from their inbox rows. While the inbox itself
+     * is still being backfilled this is skipped; that backfill writes the partners too.
+     */
+    public static void backfillIfNeeded(Context context, String uid) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_BACKFILLED + uid, false)) return;
+        if (!InboxIndex.isBackfilled(context, uid)) return;
+
+        InboxIndex.inboxRef(uid).get().addOnSuccessListener(snapshot -> {
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot row : snapshot.getChildren()) {
+                String otherUid = row.child("otherUid").getValue(String.class);
+                if (row.getKey() == null || otherUid == null) continue;
+
+                putPartner(updates, uid, otherUid, row.getKey());
+            }
+
+            if (updates.isEmpty()) {
+                prefs.edit().putBoolean(KEY_BACKFILLED + uid, true).apply();
+                return;
+            }
+
+            FirebaseDatabase.getInstance().getReference()
+                    .updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> prefs.edit().putBoolean(KEY_BACKFILLED + uid, true).apply())
+                    .addOnFailureListener(e -> Log.e(TAG, "Partners backfill failed: " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.e(TAG, "Partners backfill read failed: " + e.getMessage()));
+    }
+
+    private final DatabaseReference ref;
+    private final Set<String> partners = new HashSet<>();
+    private ChildEventListener childListener;
+    private Listener listener;
+    private boolean isLoaded;
+
+    public ChatPartners(String uid) {
+        this.ref = partnersRef(uid);
+    }
+
+    public void start(Listener listener) {
+        if (childListener != null) return;
+        this.listener = listener;
+
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                String otherUid = snapshot.getKey();
+                if (otherUid == null || !partners.add(otherUid)) return;
+                if (isLoaded && ChatPartners.this.listener != null) {
+                    ChatPartners.this.listener.onPartnerAdded(otherUid);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                partners.remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Partners listener cancelled: " + error.getMessage());
+            }
+        };
+        ref.addChildEventListener(childListener);
+
+        // Value events fire after the initial child events, so this marks the end of the first load.
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (childListener == null) return;
+                isLoaded = true;
+                if (ChatPartners.this.listener != null) ChatPartners.this.listener.onLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                if (childListener == null) return;
+                isLoaded = true;
+                if (ChatPartners.this.listener != null) ChatPartners.this.listener.onLoaded();
+            }
+        });
+    }
+
+    public void stop() {
+        if (childListener != null) {
+            ref.removeEventListener(childListener);
+        }
+        childListener = null;
+        listener = null;
+        isLoaded = false;
+        partners.clear();
+    }
+
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    public boolean contains(String otherUid) {
+        return partners.contains(otherUid);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.messenger.data.chats;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user inbox at {@code UserChats/{uid}/{chatId}}: one summary row per chat
+ * (otherUid, lastMessageTime, lastMessagePreview, unreadCount, updatedAt), so chat lists
+ * read only the current user's rows instead of the whole {@code Chats} root.
+ * All writes are paths of a root-level multi-path update.
+ */
+public class InboxIndex {
+
+    private static final String TAG = "InboxIndex";
+
+    public static final String ROOT = "UserChats";
+    // Server time of the row's last new message; unlike lastMessageTime it never comes from a device clock.
+    public static final String UPDATED_AT = "updatedAt";
+
+    private static final String PREFS_NAME = "inbox_index";
+    private static final String KEY_BACKFILLED = "backfilled_";
+    private static final String KEY_MUTED_BACKFILLED = "muted_backfilled_";
+
+    public static DatabaseReference inboxRef(String uid) {
+        return FirebaseDatabase.getInstance().getReference(ROOT).child(uid);
+    }
+
+    public static String rowPath(String uid, String chatId) {
+        return ROOT + "/" + uid + "/" + chatId;
+    }
+
+    public static String chatPath(String chatId) {
+        return "Chats/" + chatId;
+    }
+
+    public static void putNewChat(Map<String, Object> updates, String chatId,
+                                  String user1, String user2, long time) {
+        putRow(updates, chatId, user1, user2, time, "");
+        putRow(updates, chatId, user2, user1, time, "");
+        updates.put(rowPath(user1, chatId) + "/unreadCount", 0);
+        updates.put(rowPath(user2, chatId) + "/unreadCount", 0);
+        ChatPartners.putPair(updates, chatId, user1, user2);
+    }
+
+    public static void putLastMessage(Map<String, Object> updates, String chatId,
+                                      String senderId, String receiverId, long time, String preview) {
+        updates.put(chatPath(chatId) + "/lastMessageTime", time);
+        updates.put(chatPath(chatId) + "/lastMessagePreview", preview);
+
+        if (senderId == null || receiverId == null) return;
+        putRow(updates, chatId, senderId, receiverId, time, preview);
+        putRow(updates, chatId, receiverId, senderId, time, preview);
+        updates.put(rowPath(senderId, chatId) + "/" + UPDATED_AT, ServerValue.TIMESTAMP);
+        updates.put(rowPath(receiverId, chatId) + "/" + UPDATED_AT, ServerValue.TIMESTAMP);
+    }
+
+    public static void putPreview(Map<String, Object> updates, String chatId,
+                                  String uid, String otherUid, String preview) {
+        updates.put(chatPath(chatId) + "/lastMessagePreview", preview);
+
+        if (uid == null || otherUid == null) return;
+        updates.put(rowPath(uid, chatId) + "/lastMessagePreview", preview);
+        updates.put(rowPath(otherUid, chatId) + "/lastMessagePreview", preview);
+    }
+
+    public static void putUnreadCount(Map<String, Object> updates, String chatId, String uid, long count) {
+        updates.put(chatPath(chatId) + "/unreadCount/" + uid, count);
+        updates.put(rowPath(uid, chatId) + "/unreadCount", count);
+    }
+
+    public static void putUnreadIncrement(Map<String, Object> updates, String chatId, String uid) {
+        updates.put(chatPath(chatId) + "/unreadCount/" + uid, ServerValue.increment(1));
+        updates.put(rowPath(uid, chatId) + "/unreadCount", ServerValue.increment(1));
+    }
+
+    public static void putMuted(Map<String, Object> updates, String chatId, String uid, boolean muted) {
+        updates.put(chatPath(chatId) + "/mutedBy/" + uid, muted);
+        updates.put(rowPath(uid, chatId) + "/muted", muted);
+    }
+
+    private static void putRow(Map<String, Object> updates, String chatId, String uid,
+                               String otherUid, long time, String preview) {
+        String path = rowPath(uid, chatId);
+        updates.put(path + "/otherUid", otherUid);
+        updates.put(path + "/lastMessageTime", time);
+        updates.put(path + "/lastMessagePreview", preview);
+    }
+
+    public static boolean isBackfilled(Context context, String uid) {
+        return context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(KEY_BACKFILLED + uid, false);
+    }
+
+    /**
+     * One-time migration for chats created before the inbox existed:
+     * copies the summary of every chat the user takes part in into their inbox.
+     */
+    public static void backfillIfNeeded(Context context, String uid) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_BACKFILLED + uid, false)) {
+            backfillMutedIfNeeded(prefs, uid);
+            return;
+        }
+
+        DatabaseReference chatsRef = FirebaseDatabase.getInstance().getReference("Chats");
+        Task<DataSnapshot> asUser1 = chatsRef.orderByChild("user1").equalTo(uid).get();
+        Task<DataSnapshot> asUser2 = chatsRef.orderByChild("user2").equalTo(uid).get();
+
+        Tasks.whenAllSuccess(asUser1, asUser2).addOnSuccessListener(results -> {
+            Map<String, Object> updates = new HashMap<>();
+
+            for (Object result : results) {
+                for (DataSnapshot chatSnap : ((DataSnapshot) result).getChildren()) {
+                    String chatId = chatSnap.getKey();
+                    String user1 = chatSnap.child("user1").getValue(String.class);
+                    String user2 = chatSnap.child("user2").getValue(String.class);
+                    if (chatId == null || user1 == null || user2 == null) continue;
+
+                    String otherUid = uid.equals(user1) ? user2 : user1;
+                    Long time = chatSnap.child("lastMessageTime").getValue(Long.class);
+                    String preview = chatSnap.child("lastMessagePreview").getValue(String.class);
+                    Long unread = chatSnap.child("unreadCount").child(uid).getValue(Long.class);
+                    Boolean muted = chatSnap.child("mutedBy").child(uid).getValue(Boolean.class);
+
+                    putRow(updates, chatId, uid, otherUid,
+                            time != null ? time : 0L, preview != null ? preview : "");
+                    updates.put(rowPath(uid, chatId) + "/unreadCount", unread != null ? unread : 0L);
+                    updates.put(rowPath(uid, chatId) + "/muted", muted != null && muted);
+                    ChatPartners.putPartner(updates, uid, otherUid, chatId);
+                }
+            }
+
+            // The rows written here already carry the mute flag.
+            if (updates.isEmpty()) {
+                prefs.edit()
+                        .putBoolean(KEY_BACKFILLED + uid, true)
+                        .putBoolean(KEY_MUTED_BACKFILLED + uid, true)
+                        .apply();
+                return;
+            }
+
+            FirebaseDatabase.getInstance().getReference()
+                    .updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> prefs.edit()
+                            .putBoolean(KEY_BACKFILLED + uid, true)
+                            .putBoolean(KEY_MUTED_BACKFILLED + uid, true)
+                            .apply())
+                    .addOnFailureListener(e -> Log.e(TAG, "Inbox backfill failed: " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.e(TAG, "Inbox backfill query failed: " + e.getMessage()));
+    }
+
+    /**
+     * One-time migration for inboxes backfilled before rows carried the mute flag: copies
+     * {@code Chats/{chatId}/mutedBy/{uid}} into each existing row, touching nothing else in it.
+     */
+    private static void backfillMutedIfNeeded(SharedPreferences prefs, String uid) {
+        if (prefs.getBoolean(KEY_MUTED_BACKFILLED + uid, false)) return;
+
+        inboxRef(uid).get().addOnSuccessListener(inbox -> {
+            List<String> chatIds = new ArrayList<>();
+            List<Task<DataSnapshot>> reads = new ArrayList<>();
+            for (DataSnapshot row : inbox.getChildren()) {
+                chatIds.add(row.getKey());
+                reads.add(FirebaseDatabase.getInstance().getReference(chatPath(row.getKey()))
+                        .child("mutedBy").child(uid).get());
+            }
+
+            Tasks.whenAllSuccess(reads).addOnSuccessListener(results -> {
+                Map<String, Object> updates = new HashMap<>();
+                for (int i = 0; i < results.size(); i++) {
+                    Boolean muted = ((DataSnapshot) results.get(i)).getValue(Boolean.class);
+                    if (muted != null) {
+                        updates.put(rowPath(uid, chatIds.get(i)) + "/muted", muted);
+                    }
+                }
+
+                if (updates.isEmpty()) {
+                    prefs.edit().putBoolean(KEY_MUTED_BACKFILLED + uid, true).apply();
+                    return;
+                }
+
+                FirebaseDatabase.getInstance().getReference()
+                        .updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> prefs.edit().putBoolean(KEY_MUTED_BACKFILLED + uid, true).apply())
+                        .addOnFailureListener(e -> Log.e(TAG, "Mute flag backfill failed: " + e.getMessage()));
+            }).addOnFailureListener(e -> Log.e(TAG, "Mute flag read failed: " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.e(TAG, "Inbox read failed: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.messenger.data.chats;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.messenger.data.models.InboxEntry;
+import com.example.messenger.data.models.InboxEntryCodec;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches the whole inbox with one child listener and reports rows whose unread
+ * counter went up, i.e. new incoming messages in any chat, including chats created
+ * after the watcher started. Rows present at start are only taken as a baseline.
+ */
+public class InboxWatcher {
+
+    private static final String TAG = "InboxWatcher";
+
+    public interface Listener {
+        void onNewMessages(InboxEntry entry, long newCount);
+
+        // Every add/change of a row, baseline included.
+        default void onRow(InboxEntry entry) {}
+    }
+
+    private final DatabaseReference ref;
+    private final Listener listener;
+    private final Map<String, Long> unreadCounts = new HashMap<>();
+    private ChildEventListener childListener;
+    private boolean isLoaded;
+
+    public InboxWatcher(String uid, Listener listener) {
+        this.ref = InboxIndex.inboxRef(uid);
+        this.listener = listener;
+    }
+
+    public void start() {
+        if (childListener != null) return;
+
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onRow(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onRow(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                unreadCounts.remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Inbox listener cancelled: " + error.getMessage());
+            }
+        };
+        ref.addChildEventListener(childListener);
+
+        // Fires after the initial onChildAdded calls: everything before it is the baseline.
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                isLoaded = true;
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                isLoaded = true;
+            }
+        });
+    }
+
+    public void stop() {
+        if (childListener != null) {
+            ref.removeEventListener(childListener);
+        }
+        childListener = null;
+        isLoaded = false;
+        unreadCounts.clear();
+    }
+
+    private void onRow(DataSnapshot snapshot) {
+        InboxEntry entry = InboxEntryCodec.fromSnapshot(snapshot);
+        if (entry == null || entry.getChatId() == null) return;
+
+        Long previous = unreadCounts.put(entry.getChatId(), entry.getUnreadCount());
+        listener.onRow(entry);
+        if (!isLoaded || childListener == null) return;
+
+        long before = previous != null ? previous : 0L;
+        if (entry.getUnreadCount() > before) {
+            listener.onNewMessages(entry, entry.getUnreadCount() - before);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.messenger.data.chats;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read state of one chat as a per-user watermark at {@code Chats/{chatId}/lastReadKey/{uid}}:
+ * every message whose push key sorts at or below it counts as read. Keys are ordered by the
+ * server, so the sender's clock plays no part, and the stored key only ever moves forward.
+ * Local advances are debounced into a single write that also clears the unread counter.
+ */
+public class ReadWatermark {
+
+    public interface PeerListener {
+        void onPeerLastReadChanged(@Nullable String messageKey);
+    }
+
+    private final String chatId;
+    private final String uid;
+    private final long debounceMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+
+    private String pendingKey;
+    private String writtenKey;
+    private boolean isWriteScheduled = false;
+
+    private DatabaseReference peerRef;
+    private ValueEventListener peerListener;
+
+    public ReadWatermark(String chatId, String uid, long debounceMs) {
+        this.chatId = chatId;
+        this.uid = uid;
+        this.debounceMs = debounceMs;
+    }
+
+    public static String path(String chatId, String uid) {
+        return InboxIndex.chatPath(chatId) + "/lastReadKey/" + uid;
+    }
+
+    public void markRead(@Nullable String messageKey) {
+        if (isNewer(messageKey, pendingKey)) {
+            pendingKey = messageKey;
+        }
+        if (isWriteScheduled) return;
+
+        isWriteScheduled = true;
+        handler.postDelayed(flushRunnable, debounceMs);
+    }
+
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        if (!isWriteScheduled) return;
+        isWriteScheduled = false;
+
+        Map<String, Object> updates = new HashMap<>();
+        InboxIndex.putUnreadCount(updates, chatId, uid, 0);
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates);
+
+        if (isNewer(pendingKey, writtenKey)) {
+            writtenKey = pendingKey;
+            advance(pendingKey);
+        }
+    }
+
+    // Another device of the same user may already have read further.
+    private void advance(String messageKey) {
+        FirebaseDatabase.getInstance().getReference(path(chatId, uid)).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                String stored = currentData.getValue(String.class);
+                if (isNewer(messageKey, stored)) {
+                    currentData.setValue(messageKey);
+                }
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {}
+        });
+    }
+
+    private static boolean isNewer(@Nullable String key, @Nullable String than) {
+        return key != null && (than == null || key.compareTo(than) > 0);
+    }
+
+    public void observePeer(String peerUid, PeerListener listener) {
+        stopObservingPeer();
+
+        peerRef = FirebaseDatabase.getInstance().getReference(path(chatId, peerUid));
+        peerListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onPeerLastReadChanged(snapshot.getValue(String.class));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {}
+        };
+        peerRef.addValueEventListener(peerListener);
+    }
+
+    public void stopObservingPeer() {
+        if (peerRef != null && peerListener != null) {
+            peerRef.removeEventListener(peerListener);
+        }
+        peerRef = null;
+        peerListener = null;
+    }
+}
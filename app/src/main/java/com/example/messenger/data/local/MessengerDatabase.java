@@ -0,0 +1,97 @@
+package com.example.messenger.data.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+public class MessengerDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "messenger.db";
+    private static final int DATABASE_VERSION = 3;
+
+    public static final String TABLE_MESSAGES = "messages";
+    public static final String COLUMN_CHAT_ID = "chat_id";
+    public static final String COLUMN_ID = "id";
+    public static final String COLUMN_TIMESTAMP = "timestamp";
+    // Message fields as the JSON of MessageCodec.toMap(), so new model fields need no migration.
+    public static final String COLUMN_PAYLOAD = "payload";
+    // Key of the message right before this one on the server, when known; see MessageStore.loadBefore().
+    public static final String COLUMN_PREVIOUS_ID = "previous_id";
+
+    // Attachments waiting to be uploaded and posted, see UploadQueue.
+    public static final String TABLE_UPLOADS = "uploads";
+    public static final String COLUMN_MESSAGE_ID = "message_id";
+    public static final String COLUMN_SENDER_ID = "sender_id";
+    public static final String COLUMN_RECEIVER_ID = "receiver_id";
+    public static final String COLUMN_FILE_PATH = "file_path";
+    public static final String COLUMN_FOLDER = "folder";
+    public static final String COLUMN_PUBLIC_ID = "public_id";
+    public static final String COLUMN_PREVIEW = "preview";
+    public static final String COLUMN_FILE_URL = "file_url";
+    public static final String COLUMN_UPLOADED_BYTES = "uploaded_bytes";
+
+    private static volatile MessengerDatabase instance;
+
+    public static MessengerDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MessengerDatabase.class) {
+                if (instance == null) {
+                    instance = new MessengerDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private MessengerDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " ("
+                + COLUMN_CHAT_ID + " TEXT NOT NULL, "
+                + COLUMN_ID + " TEXT NOT NULL, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL, "
+                + COLUMN_PAYLOAD + " TEXT NOT NULL, "
+                + COLUMN_PREVIOUS_ID + " TEXT, "
+                + "PRIMARY KEY (" + COLUMN_CHAT_ID + ", " + COLUMN_ID + "))");
+        db.execSQL("CREATE INDEX index_messages_chat_timestamp ON " + TABLE_MESSAGES
+                + " (" + COLUMN_CHAT_ID + ", " + COLUMN_TIMESTAMP + ")");
+        createUploadsTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Queued uploads are user data, so upgrades add tables instead of rebuilding the file.
+        if (oldVersion < 2) {
+            createUploadsTable(db);
+        }
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE " + TABLE_MESSAGES + " ADD COLUMN " + COLUMN_PREVIOUS_ID + " TEXT");
+        }
+    }
+
+    private static void createUploadsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_UPLOADS + " ("
+                + COLUMN_ID + " TEXT PRIMARY KEY, "
+                + COLUMN_CHAT_ID + " TEXT NOT NULL, "
+                + COLUMN_MESSAGE_ID + " TEXT, "
+                + COLUMN_SENDER_ID + " TEXT NOT NULL, "
+                + COLUMN_RECEIVER_ID + " TEXT, "
+                + COLUMN_FILE_PATH + " TEXT NOT NULL, "
+                + COLUMN_FOLDER + " TEXT NOT NULL, "
+                + COLUMN_PUBLIC_ID + " TEXT NOT NULL, "
+                + COLUMN_PAYLOAD + " TEXT NOT NULL, "
+                + COLUMN_PREVIEW + " TEXT, "
+                + COLUMN_FILE_URL + " TEXT, "
+                + COLUMN_UPLOADED_BYTES + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL)");
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.messenger.data.media;
+
+import android.content.Context;
+
+import com.example.messenger.config.AppConfig;
+
+/**
+ * Rewrites Cloudinary delivery URLs to request a derivative sized for where it is shown,
+ * e.g. {@code .../image/upload/v1/x.jpg} becomes {@code .../image/upload/w_480,c_limit,q_auto,f_auto/v1/x.jpg}.
+ * Widths are snapped up to {@link AppConfig.Media#WIDTH_BUCKETS} so the same few derivatives
+ * are reused across devices and stay warm in the CDN and Glide caches.
+ * URLs that are not Cloudinary uploads are returned unchanged.
+ */
+public class CloudinaryUrls {
+
+    private static final String HOST = "res.cloudinary.com";
+    private static final String UPLOAD_SEGMENT = "/upload/";
+    private static final String VIDEO_UPLOAD_SEGMENT = "/video/upload/";
+
+    public static String sized(Context context, String url, int widthDp) {
+        float density = context.getResources().getDisplayMetrics().density;
+        return sizedPx(url, Math.round(widthDp * density));
+    }
+
+    public static String sizedPx(String url, int widthPx) {
+        return transform(url, "w_" + bucket(widthPx) + ",c_limit,q_auto,f_auto");
+    }
+
+    // First frame of an uploaded video as a JPEG still; null when the URL is not a Cloudinary video.
+    public static String videoPoster(String videoUrl) {
+        if (videoUrl == null || !videoUrl.contains(HOST) || !videoUrl.contains(VIDEO_UPLOAD_SEGMENT)) {
+            return null;
+        }
+
+        String poster = transform(videoUrl, "so_0");
+        int dot = poster.lastIndexOf('.');
+        int slash = poster.lastIndexOf('/');
+        return (dot > slash ? poster.substring(0, dot) : poster) + ".jpg";
+    }
+
+    static String transform(String url, String transformation) {
+        if (url == null || !url.contains(HOST)) return url;
+
+        int index = url.indexOf(UPLOAD_SEGMENT);
+        if (index < 0) return url;
+
+        int insertAt = index + UPLOAD_SEGMENT.length();
+        return url.substring(0, insertAt) + transformation + "/" + url.substring(insertAt);
+    }
+
+    static int bucket(int widthPx) {
+        int[] buckets = AppConfig.Media.WIDTH_BUCKETS;
+        for (int bucket : buckets) {
+            if (bucket >= widthPx) return bucket;
+        }
+        return buckets[buckets.length - 1];
+    }
+}
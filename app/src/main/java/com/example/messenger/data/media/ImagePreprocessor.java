@@ -0,0 +1,206 @@
+package com.example.messenger.data.media;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.messenger.config.AppConfig;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shrinks picked photos before upload: decodes with subsampling, scales the long edge down to
+ * {@link AppConfig.FileUpload#IMAGE_MAX_EDGE}, applies the EXIF rotation and re-encodes into the
+ * cache dir. Re-encoding drops every metadata tag (GPS, camera model) along the way.
+ * Work runs on a single background thread; results are delivered on the main thread.
+ */
+public class ImagePreprocessor {
+
+    private static final String TAG = "ImagePreprocessor";
+    private static final String OUTPUT_DIR = "outgoing_images";
+    private static final long STALE_FILE_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    public static class Result {
+        public final Uri uri;
+        public final String fileName;
+        public final long fileSize;
+
+        Result(Uri uri, String fileName, long fileSize) {
+            this.uri = uri;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+        }
+    }
+
+    public interface Callback {
+        // result is null when the image could not be decoded; the caller uploads the original then.
+        void onProcessed(@Nullable Result result);
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // GIFs would lose their animation, everything else is re-encoded.
+    public static boolean shouldProcess(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/") && !mimeType.equals("image/gif");
+    }
+
+    public static void process(Context context, Uri source, String fileName, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        // Created per call rather than statically, so loading the class needs no Looper.
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        executor.execute(() -> {
+            Result result = null;
+            try {
+                result = encode(appContext, source, fileName);
+            } catch (IOException | OutOfMemoryError e) {
+                Log.e(TAG, "Failed to preprocess image: " + e.getMessage());
+            }
+
+            Result delivered = result;
+            mainHandler.post(() -> callback.onProcessed(delivered));
+        });
+    }
+
+    @Nullable
+    private static Result encode(Context context, Uri source, String fileName) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = context.getContentResolver().openInputStream(source)) {
+            if (in == null) return null;
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        int maxEdge = AppConfig.FileUpload.IMAGE_MAX_EDGE;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxEdge);
+
+        Bitmap decoded;
+        try (InputStream in = context.getContentResolver().openInputStream(source)) {
+            if (in == null) return null;
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) return null;
+
+        Bitmap output = transform(decoded, readOrientation(context, source), maxEdge);
+        if (output != decoded) {
+            decoded.recycle();
+        }
+
+        // JPEG would drop transparency (screenshots, stickers).
+        boolean keepAlpha = output.hasAlpha();
+        String extension = keepAlpha ? ".png" : ".jpg";
+
+        File dir = new File(context.getCacheDir(), OUTPUT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            output.recycle();
+            return null;
+        }
+        deleteStaleFiles(dir);
+
+        File file = new File(dir, "img_" + System.currentTimeMillis() + extension);
+        try (OutputStream out = new FileOutputStream(file)) {
+            output.compress(keepAlpha ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG,
+                    AppConfig.FileUpload.IMAGE_QUALITY, out);
+        } finally {
+            output.recycle();
+        }
+
+        Log.d(TAG, "Re-encoded " + bounds.outWidth + "x" + bounds.outHeight
+                + " to " + file.length() + " bytes");
+        return new Result(Uri.fromFile(file), replaceExtension(fileName, extension), file.length());
+    }
+
+    // Largest power of two that still leaves the long edge at or above maxEdge.
+    static int sampleSize(int width, int height, int maxEdge) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= maxEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int readOrientation(Context context, Uri source) {
+        try (InputStream in = context.getContentResolver().openInputStream(source)) {
+            if (in == null) return ExifInterface.ORIENTATION_NORMAL;
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    // Scaling and rotation in a single pass, so only one extra bitmap is allocated.
+    private static Bitmap transform(Bitmap bitmap, int orientation, int maxEdge) {
+        Matrix matrix = new Matrix();
+
+        int longEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longEdge > maxEdge) {
+            float scale = (float) maxEdge / longEdge;
+            matrix.postScale(scale, scale);
+        }
+
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(270);
+                matrix.postScale(-1, 1);
+                break;
+        }
+
+        if (matrix.isIdentity()) return bitmap;
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    private static void deleteStaleFiles(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        long cutoff = System.currentTimeMillis() - STALE_FILE_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff) {
+                file.delete();
+            }
+        }
+    }
+
+    private static String replaceExtension(String fileName, String extension) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return base + extension;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.messenger.data.media;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.local.MessengerDatabase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_CHAT_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_FILE_PATH;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_FILE_URL;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_FOLDER;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_MESSAGE_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_PAYLOAD;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_PREVIEW;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_PUBLIC_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_RECEIVER_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_SENDER_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_TIMESTAMP;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_UPLOADED_BYTES;
+import static com.example.messenger.data.local.MessengerDatabase.TABLE_UPLOADS;
+
+/**
+ * Attachments waiting to be uploaded to Cloudinary and posted to their chat. The picked file is
+ * copied into app storage and the pending message is stored in the {@code uploads} table, so
+ * both survive the activity and the process; {@link UploadWorker} does the upload and the send.
+ * Enqueueing runs on a single background thread; the worker reads and updates rows directly.
+ */
+public class UploadQueue {
+
+    private static final String TAG = "UploadQueue";
+    private static final String FILES_DIR = "uploads";
+    private static final String WORK_PREFIX = "upload_";
+
+    public static class Upload {
+        public final String id;
+        public final String chatId;
+        // Reserved once the file is uploaded, so the message sorts by when it is posted.
+        public final String messageId;
+        public final String senderId;
+        public final String receiverId;
+        public final String filePath;
+        public final String folder;
+        public final String publicId;
+        public final String payload;
+        public final String preview;
+        public final String fileUrl;
+        public final long uploadedBytes;
+
+        Upload(Cursor cursor) {
+            id = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ID));
+            chatId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CHAT_ID));
+            messageId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_ID));
+            senderId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SENDER_ID));
+            receiverId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_RECEIVER_ID));
+            filePath = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FILE_PATH));
+            folder = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FOLDER));
+            publicId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PUBLIC_ID));
+            payload = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PAYLOAD));
+            preview = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PREVIEW));
+            fileUrl = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FILE_URL));
+            uploadedBytes = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_UPLOADED_BYTES));
+        }
+
+        // Message fields captured when the file was picked, without fileUrl.
+        public Map<String, Object> message() throws JSONException {
+            JSONObject json = new JSONObject(payload);
+            Map<String, Object> map = new HashMap<>();
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                map.put(key, json.get(key));
+            }
+            return map;
+        }
+    }
+
+    public interface Callback {
+        // uploadId is null when the file could not be copied for upload.
+        void onQueued(@Nullable String uploadId);
+    }
+
+    private static volatile UploadQueue instance;
+
+    private final Context context;
+    private final MessengerDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static UploadQueue getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UploadQueue.class) {
+                if (instance == null) {
+                    instance = new UploadQueue(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private UploadQueue(Context context) {
+        this.context = context;
+        this.database = MessengerDatabase.getInstance(context);
+    }
+
+    public void enqueue(Uri source, String chatId, String senderId, String receiverId,
+                        String folder, String publicId, Map<String, Object> msg, String preview,
+                        Callback callback) {
+        String id = UUID.randomUUID().toString();
+        String payload = new JSONObject(msg).toString();
+
+        executor.execute(() -> {
+            String queuedId = null;
+            try {
+                File file = copyToStorage(source, id);
+
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_ID, id);
+                values.put(COLUMN_CHAT_ID, chatId);
+                values.put(COLUMN_SENDER_ID, senderId);
+                values.put(COLUMN_RECEIVER_ID, receiverId);
+                values.put(COLUMN_FILE_PATH, file.getAbsolutePath());
+                values.put(COLUMN_FOLDER, folder);
+                values.put(COLUMN_PUBLIC_ID, publicId);
+                values.put(COLUMN_PAYLOAD, payload);
+                values.put(COLUMN_PREVIEW, preview);
+                values.put(COLUMN_TIMESTAMP, System.currentTimeMillis());
+                database.getWritableDatabase().insertOrThrow(TABLE_UPLOADS, null, values);
+
+                schedule(context, id);
+                queuedId = id;
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to queue upload: " + e.getMessage());
+                new File(new File(context.getFilesDir(), FILES_DIR), id).delete();
+            }
+
+            String delivered = queuedId;
+            mainHandler.post(() -> callback.onQueued(delivered));
+        });
+    }
+
+    // Re-schedules rows whose work was lost (e.g. app data of WorkManager cleared); KEEP makes it a no-op otherwise.
+    public void resumePending() {
+        executor.execute(() -> {
+            List<String> ids = new ArrayList<>();
+            try (Cursor cursor = database.getReadableDatabase().query(TABLE_UPLOADS,
+                    new String[]{COLUMN_ID}, null, null, null, null, COLUMN_TIMESTAMP)) {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getString(0));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read pending uploads: " + e.getMessage());
+            }
+
+            for (String id : ids) {
+                schedule(context, id);
+            }
+        });
+    }
+
+    public static LiveData<List<WorkInfo>> observe(Context context, String uploadId) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(WORK_PREFIX + uploadId);
+    }
+
+    @Nullable
+    Upload load(String id) {
+        try (Cursor cursor = database.getReadableDatabase().query(TABLE_UPLOADS, null,
+                COLUMN_ID + " = ?", new String[]{id}, null, null, null)) {
+            return cursor.moveToFirst() ? new Upload(cursor) : null;
+        }
+    }
+
+    void saveUploadedBytes(String id, long uploadedBytes) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_UPLOADED_BYTES, uploadedBytes);
+        database.getWritableDatabase().update(TABLE_UPLOADS, values, COLUMN_ID + " = ?", new String[]{id});
+    }
+
+    void saveMessageId(String id, String messageId) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_MESSAGE_ID, messageId);
+        database.getWritableDatabase().update(TABLE_UPLOADS, values, COLUMN_ID + " = ?", new String[]{id});
+    }
+
+    void saveFileUrl(String id, String fileUrl) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_FILE_URL, fileUrl);
+        database.getWritableDatabase().update(TABLE_UPLOADS, values, COLUMN_ID + " = ?", new String[]{id});
+    }
+
+    void remove(Upload upload) {
+        database.getWritableDatabase().delete(TABLE_UPLOADS, COLUMN_ID + " = ?", new String[]{upload.id});
+        new File(upload.filePath).delete();
+    }
+
+    private static void schedule(Context context, String id) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(UploadWorker.class)
+                .setInputData(new Data.Builder().putString(UploadWorker.KEY_UPLOAD_ID, id).build())
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL,
+                        AppConfig.FileUpload.RETRY_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_PREFIX + id, ExistingWorkPolicy.KEEP, request);
+    }
+
+    // Content URIs lose their read grant with the activity, so the worker uploads a private copy.
+    private File copyToStorage(Uri source, String id) throws IOException {
+        File dir = new File(context.getFilesDir(), FILES_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        File file = new File(dir, id);
+        try (InputStream in = context.getContentResolver().openInputStream(source);
+             OutputStream out = new FileOutputStream(file)) {
+            if (in == null) throw new IOException("Cannot open " + source);
+
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.messenger.data.media;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.cloudinary.android.MediaManager;
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.messages.MessageSender;
+import com.example.messenger.notifications.NotificationHelper;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads one queued attachment in chunks and posts its message through {@link MessageSender}.
+ * Chunks the server has acknowledged are remembered, so a retry continues from the last one
+ * instead of sending the whole file again; a finished upload is never repeated when only the
+ * send failed.
+ */
+public class UploadWorker extends Worker {
+
+    public static final String KEY_UPLOAD_ID = "upload_id";
+    public static final String KEY_PROGRESS = "progress";
+
+    private static final String TAG = "UploadWorker";
+
+    public UploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        UploadQueue queue = UploadQueue.getInstance(getApplicationContext());
+        String uploadId = getInputData().getString(KEY_UPLOAD_ID);
+        UploadQueue.Upload upload = uploadId != null ? queue.load(uploadId) : null;
+        if (upload == null) return Result.failure();
+
+        File file = new File(upload.filePath);
+        if ((upload.fileUrl == null && !file.exists())
+                || getRunAttemptCount() >= AppConfig.FileUpload.MAX_UPLOAD_ATTEMPTS) {
+            return giveUp(queue, upload);
+        }
+
+        try {
+            String fileUrl = upload.fileUrl;
+            if (fileUrl == null) {
+                fileUrl = uploadFile(queue, upload, file);
+                queue.saveFileUrl(upload.id, fileUrl);
+            }
+
+            Map<String, Object> msg = upload.message();
+            msg.put("fileUrl", fileUrl);
+            msg.put("timestamp", System.currentTimeMillis());
+            msg.put("date", new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault()).format(new Date()));
+            if ("video".equals(msg.get("fileType"))) {
+                String thumbnailUrl = CloudinaryUrls.videoPoster(fileUrl);
+                if (thumbnailUrl != null) {
+                    msg.put("thumbnailUrl", thumbnailUrl);
+                }
+            }
+
+            String messageId = upload.messageId;
+            if (messageId == null) {
+                messageId = MessageSender.newMessageId(upload.chatId);
+                queue.saveMessageId(upload.id, messageId);
+            }
+
+            Tasks.await(MessageSender.send(upload.chatId, messageId, upload.senderId,
+                            upload.receiverId, msg, upload.preview),
+                    AppConfig.FileUpload.SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            queue.remove(upload);
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Upload " + upload.id + " failed, will retry: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    // A file that already reached Cloudinary stays queued and is retried on the next app start;
+    // anything else is dropped. Either way the user is told, since the chat may be closed.
+    private Result giveUp(UploadQueue queue, UploadQueue.Upload upload) {
+        Log.e(TAG, "Giving up on upload " + upload.id);
+        if (upload.fileUrl == null) {
+            queue.remove(upload);
+        }
+
+        String fileName = null;
+        try {
+            Object name = upload.message().get("fileName");
+            fileName = name instanceof String ? (String) name : null;
+        } catch (Exception ignored) {}
+
+        NotificationHelper.showUploadFailed(getApplicationContext(), upload.id, upload.chatId, fileName);
+        return Result.failure();
+    }
+
+    private String uploadFile(UploadQueue queue, UploadQueue.Upload upload, File file) throws IOException {
+        Map<String, Object> options = new HashMap<>();
+        options.put("folder", upload.folder);
+        options.put("public_id", upload.publicId);
+        options.put("resource_type", "auto");
+
+        int chunkSize = AppConfig.FileUpload.CHUNK_SIZE;
+        long[] acknowledged = {upload.uploadedBytes};
+        int[] published = {-1};
+
+        // The upload id doubles as X-Unique-Upload-Id, so resumed chunks join the same upload.
+        Map result = MediaManager.get().getCloudinary().uploader().uploadLarge(
+                file, options, chunkSize, upload.uploadedBytes, upload.id,
+                (bytes, totalBytes) -> {
+                    // Every setProgressAsync() is a WorkManager database write, so only whole-percent steps go out.
+                    int percent = totalBytes > 0 ? (int) (bytes * 100 / totalBytes) : -1;
+                    if (percent > published[0]) {
+                        published[0] = percent;
+                        setProgressAsync(new Data.Builder()
+                                .putInt(KEY_PROGRESS, percent)
+                                .build());
+                    }
+
+                    // Chunks are sent one after another: once the next one is being written,
+                    // every chunk before it has been accepted.
+                    long done = bytes > 0 ? (bytes - 1) / chunkSize * chunkSize : 0;
+                    if (done > acknowledged[0]) {
+                        acknowledged[0] = done;
+                        queue.saveUploadedBytes(upload.id, done);
+                    }
+                });
+
+        Object secureUrl = result.get("secure_url");
+        if (!(secureUrl instanceof String)) {
+            throw new IOException("No secure_url in upload response");
+        }
+        return (String) secureUrl;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.messenger.data.messages;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.messenger.data.models.Message;
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns batches of message snapshots into {@link Message} objects on a background thread.
+ * Batches are decoded and delivered back on the main thread in submission order.
+ */
+public class MessageDecoder {
+
+    public interface Callback {
+        // Results line up with the submitted snapshots; undecodable entries are null.
+        void onDecoded(List<Message> messages);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean isShutdown = false;
+
+    public void decode(List<DataSnapshot> snapshots, Callback callback) {
+        if (isShutdown) return;
+
+        executor.execute(() -> {
+            List<Message> messages = new ArrayList<>(snapshots.size());
+            for (DataSnapshot snapshot : snapshots) {
+                messages.add(snapshot != null ? MessageParser.parse(snapshot) : null);
+            }
+
+            mainHandler.post(() -> {
+                if (!isShutdown) {
+                    callback.onDecoded(messages);
+                }
+            });
+        });
+    }
+
+    public void shutdown() {
+        isShutdown = true;
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.messenger.data.messages;
+
+import com.example.messenger.data.models.Message;
+import com.example.messenger.data.models.MessageCodec;
+import com.google.firebase.database.DataSnapshot;
+
+public class MessageParser {
+
+    public static Message parse(DataSnapshot msgSnapshot) {
+        Message message = MessageCodec.fromSnapshot(msgSnapshot);
+        if (message == null || message.getOwnerId() == null) return null;
+
+        if (message.getText() == null) message.setText("");
+        if (message.getDate() == null) message.setDate("");
+
+        if (!message.isForwarded()) {
+            message.setForwardedFrom(null);
+        }
+
+        if (message.getReplyToMessageId() != null && message.getReplyToMessageId().isEmpty()) {
+            message.setReplyToMessageId(null);
+        }
+        if (message.getReplyToMessageId() == null) {
+            message.setReplyToText(null);
+            message.setReplyToOwnerName(null);
+            message.setReplyToFileType(null);
+        }
+
+        if (message.getContactUserId() != null && message.getContactUserId().isEmpty()) {
+            message.setContactUserId(null);
+        }
+        if (message.getContactUserId() == null) {
+            message.setContactUsername(null);
+        }
+
+        return message;
+    }
+}
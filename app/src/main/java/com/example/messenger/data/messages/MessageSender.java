@@ -0,0 +1,56 @@
+package com.example.messenger.data.messages;
+
+import com.example.messenger.data.chats.InboxIndex;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends a message with a single multi-path update: the message node, the chat's
+ * lastMessageTime/lastMessagePreview (in Chats and both inbox rows) and the
+ * receiver's unread increment either all land or none of them do.
+ */
+public class MessageSender {
+
+    private static final int MAX_PREVIEW_LENGTH = 50;
+
+    public static String newMessageId(String chatId) {
+        return FirebaseDatabase.getInstance()
+                .getReference("Chats")
+                .child(chatId)
+                .child("messages")
+                .push()
+                .getKey();
+    }
+
+    public static Task<Void> send(String chatId, String senderId, String receiverId,
+                                  Map<String, Object> msg, String preview) {
+        return send(chatId, newMessageId(chatId), senderId, receiverId, msg, preview);
+    }
+
+    public static Task<Void> send(String chatId, String messageId, String senderId, String receiverId,
+                                  Map<String, Object> msg, String preview) {
+        Object timestamp = msg.get("timestamp");
+        long time = timestamp instanceof Long ? (Long) timestamp : System.currentTimeMillis();
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(InboxIndex.chatPath(chatId) + "/messages/" + messageId, msg);
+        InboxIndex.putLastMessage(updates, chatId, senderId, receiverId, time, truncatePreview(preview));
+        if (receiverId != null) {
+            InboxIndex.putUnreadIncrement(updates, chatId, receiverId);
+        }
+
+        return FirebaseDatabase.getInstance()
+                .getReference()
+                .updateChildren(updates);
+    }
+
+    public static String truncatePreview(String text) {
+        if (text == null) return "";
+        return text.length() > MAX_PREVIEW_LENGTH
+                ? text.substring(0, MAX_PREVIEW_LENGTH - 3) + "..."
+                : text;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.messenger.data.messages;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.local.MessengerDatabase;
+import com.example.messenger.data.models.Message;
+import com.example.messenger.data.models.MessageCodec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_CHAT_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_PAYLOAD;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_PREVIOUS_ID;
+import static com.example.messenger.data.local.MessengerDatabase.COLUMN_TIMESTAMP;
+import static com.example.messenger.data.local.MessengerDatabase.TABLE_MESSAGES;
+
+/**
+ * On-disk copy of the messages the app has already seen, one row per (chatId, messageId),
+ * capped at {@link AppConfig.Messages#CACHED_MESSAGES_PER_CHAT} newest rows per chat.
+ * Each row may record the key of the message before it, so runs of history known to be
+ * complete can be paged back without asking the server.
+ * All database work runs on a single background thread; reads are delivered on the main thread.
+ */
+public class MessageStore {
+
+    private static final String TAG = "MessageStore";
+
+    // Previous id of the first message of a chat.
+    public static final String CHAT_START = "";
+
+    public interface Callback {
+        void onLoaded(List<Message> messages);
+    }
+
+    public interface PageCallback {
+        // reachesStart is true when the page ends at the first message of the chat.
+        void onLoaded(List<Message> messages, boolean reachesStart);
+    }
+
+    private static volatile MessageStore instance;
+
+    private final MessengerDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static MessageStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MessageStore.class) {
+                if (instance == null) {
+                    instance = new MessageStore(MessengerDatabase.getInstance(context));
+                }
+            }
+        }
+        return instance;
+    }
+
+    private MessageStore(MessengerDatabase database) {
+        this.database = database;
+    }
+
+    // Newest messages of the chat, returned in key order like MessageStream keeps them.
+    public void loadRecent(String chatId, int limit, Callback callback) {
+        executor.execute(() -> {
+            List<Message> messages = new ArrayList<>();
+
+            try (Cursor cursor = database.getReadableDatabase().query(
+                    TABLE_MESSAGES,
+                    new String[]{COLUMN_ID, COLUMN_PAYLOAD},
+                    COLUMN_CHAT_ID + " = ?",
+                    new String[]{chatId},
+                    null, null,
+                    COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC",
+                    String.valueOf(limit))) {
+
+                while (cursor.moveToNext()) {
+                    Message message = fromJson(cursor.getString(0), cursor.getString(1));
+                    if (message != null) messages.add(message);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read cached messages: " + e.getMessage());
+            }
+
+            Collections.sort(messages, (a, b) -> a.getId().compareTo(b.getId()));
+            mainHandler.post(() -> callback.onLoaded(messages));
+        });
+    }
+
+    /**
+     * Stored messages right before {@code beforeId}, in key order. The page follows the recorded
+     * previous ids from {@code beforeId} backwards and ends at the first unknown link, so it never
+     * skips messages that were never stored; the caller fetches the rest from the server.
+     */
+    public void loadBefore(String chatId, String beforeId, int limit, PageCallback callback) {
+        executor.execute(() -> {
+            List<Message> messages = new ArrayList<>();
+            String expected = null;
+
+            try {
+                SQLiteDatabase db = database.getReadableDatabase();
+                expected = previousId(db, chatId, beforeId);
+
+                if (expected != null) {
+                    try (Cursor cursor = db.query(
+                            TABLE_MESSAGES,
+                            new String[]{COLUMN_ID, COLUMN_PAYLOAD, COLUMN_PREVIOUS_ID},
+                            COLUMN_CHAT_ID + " = ? AND " + COLUMN_ID + " < ?",
+                            new String[]{chatId, beforeId},
+                            null, null,
+                            COLUMN_ID + " DESC",
+                            String.valueOf(limit))) {
+
+                        while (cursor.moveToNext() && cursor.getString(0).equals(expected)) {
+                            Message message = fromJson(cursor.getString(0), cursor.getString(1));
+                            if (message == null) break;
+                            messages.add(message);
+                            expected = cursor.getString(2);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read cached page: " + e.getMessage());
+            }
+
+            Collections.reverse(messages);
+            boolean reachesStart = CHAT_START.equals(expected);
+            mainHandler.post(() -> callback.onLoaded(messages, reachesStart));
+        });
+    }
+
+    // previousIds maps message ids to the id before them; a missing entry keeps what the row already has.
+    public void save(String chatId, List<Message> messages, Map<String, String> previousIds) {
+        if (messages.isEmpty()) return;
+        List<Message> batch = new ArrayList<>(messages);
+        Map<String, String> previous = new HashMap<>(previousIds);
+
+        executor.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Message message : batch) {
+                    ContentValues values = new ContentValues();
+                    values.put(COLUMN_TIMESTAMP, message.getTimestamp());
+                    values.put(COLUMN_PAYLOAD, new JSONObject(MessageCodec.toMap(message)).toString());
+                    String previousId = previous.get(message.getId());
+                    if (previousId != null) {
+                        values.put(COLUMN_PREVIOUS_ID, previousId);
+                    }
+
+                    int updated = db.update(TABLE_MESSAGES, values,
+                            COLUMN_CHAT_ID + " = ? AND " + COLUMN_ID + " = ?",
+                            new String[]{chatId, message.getId()});
+                    if (updated == 0) {
+                        values.put(COLUMN_CHAT_ID, chatId);
+                        values.put(COLUMN_ID, message.getId());
+                        db.insert(TABLE_MESSAGES, null, values);
+                    }
+                }
+                trim(db, chatId);
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to cache messages: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    public void delete(String chatId, List<String> messageIds) {
+        if (messageIds.isEmpty()) return;
+        List<String> ids = new ArrayList<>(messageIds);
+
+        executor.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (String id : ids) {
+                    db.delete(TABLE_MESSAGES, COLUMN_CHAT_ID + " = ? AND " + COLUMN_ID + " = ?",
+                            new String[]{chatId, id});
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to delete cached messages: " + e.getMessage());
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    @Nullable
+    private static String previousId(SQLiteDatabase db, String chatId, String id) {
+        try (Cursor cursor = db.query(TABLE_MESSAGES, new String[]{COLUMN_PREVIOUS_ID},
+                COLUMN_CHAT_ID + " = ? AND " + COLUMN_ID + " = ?",
+                new String[]{chatId, id}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    // Drops everything older than the newest CACHED_MESSAGES_PER_CHAT rows; the chain simply ends earlier.
+    private static void trim(SQLiteDatabase db, String chatId) {
+        db.execSQL("DELETE FROM " + TABLE_MESSAGES
+                        + " WHERE " + COLUMN_CHAT_ID + " = ? AND " + COLUMN_ID + " <= ("
+                        + "SELECT " + COLUMN_ID + " FROM " + TABLE_MESSAGES
+                        + " WHERE " + COLUMN_CHAT_ID + " = ?"
+                        + " ORDER BY " + COLUMN_ID + " DESC LIMIT 1 OFFSET "
+                        + AppConfig.Messages.CACHED_MESSAGES_PER_CHAT + ")",
+                new Object[]{chatId, chatId});
+    }
+
+    private static Message fromJson(String id, String payload) throws JSONException {
+        JSONObject json = new JSONObject(payload);
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, json.get(key));
+        }
+        return MessageCodec.fromMap(id, map);
+    }
+}
@@ -0,0 +1,496 @@
+package com.example.messenger.data.messages;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.example.messenger.data.models.Message;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the messages of one chat in key order and reports every change by position.
+ * The newest page is live; older pages are fetched on demand and stay static.
+ * Snapshots are decoded off the main thread, one Firebase batch at a time.
+ * With a {@link MessageStore} the last cached page is shown first, every
+ * server delta is written back to it, and older pages it already holds are read from disk.
+ */
+public class MessageStream {
+
+    public interface Listener extends ListUpdateCallback {
+        void onInitialPageLoaded();
+        void onOlderMessagesLoaded(int count);
+        void onError(@NonNull DatabaseError error);
+    }
+
+    private final String chatId;
+    private final DatabaseReference messagesRef;
+    @Nullable
+    private final MessageStore store;
+    private final int pageSize;
+    private final Listener listener;
+    private final List<Message> messages = new ArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MessageDecoder decoder = new MessageDecoder();
+    private final List<PendingEvent> pendingEvents = new ArrayList<>();
+    private boolean isFlushScheduled = false;
+
+    private Query liveQuery;
+    private ChildEventListener childListener;
+    private boolean hasMoreOlder = true;
+    private boolean isLoadingOlder = false;
+    private boolean isInitialPageLoaded = false;
+    private boolean isLiveWindowWholeChat = false;
+
+    // Messages shown from the local store that the server has not confirmed yet.
+    private final Set<String> cachedOnlyKeys = new HashSet<>();
+
+    // Key of the oldest message still inside the live limitToLast window.
+    private String liveWindowStartKey;
+    private int liveWindowSize = 0;
+    // A window-start removal is either a deletion or the window sliding forward;
+    // the next onChildAdded of the same batch tells the two apart.
+    private String pendingEvictionKey;
+
+    private static final int EVENT_ADDED = 0;
+    private static final int EVENT_CHANGED = 1;
+    private static final int EVENT_REMOVED = 2;
+    private static final int EVENT_MOVED = 3;
+
+    private static class PendingEvent {
+        final int type;
+        final String key;
+        final DataSnapshot snapshot;
+
+        PendingEvent(int type, String key, DataSnapshot snapshot) {
+            this.type = type;
+            this.key = key;
+            this.snapshot = snapshot;
+        }
+    }
+
+    public MessageStream(String chatId, DatabaseReference messagesRef, @Nullable MessageStore store,
+                         int pageSize, Listener listener) {
+        this.chatId = chatId;
+        this.messagesRef = messagesRef;
+        this.store = store;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public boolean hasMoreOlder() {
+        return hasMoreOlder;
+    }
+
+    public void start() {
+        if (liveQuery != null) return;
+
+        if (store != null) {
+            store.loadRecent(chatId, pageSize, this::mergeCached);
+        }
+
+        liveQuery = messagesRef.orderByKey().limitToLast(pageSize);
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                enqueue(new PendingEvent(EVENT_ADDED, snapshot.getKey(), snapshot));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                enqueue(new PendingEvent(EVENT_CHANGED, snapshot.getKey(), snapshot));
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                enqueue(new PendingEvent(EVENT_REMOVED, snapshot.getKey(), null));
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                enqueue(new PendingEvent(EVENT_MOVED, snapshot.getKey(), null));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error);
+            }
+        };
+        liveQuery.addChildEventListener(childListener);
+
+        // Value events fire after the child events of the same data, so this marks the end of the first page.
+        liveQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                hasMoreOlder = snapshot.getChildrenCount() >= pageSize;
+                isLiveWindowWholeChat = !hasMoreOlder;
+                // Posted behind the first page's flush so it is reported once that page is decoded.
+                mainHandler.post(() -> decoder.decode(new ArrayList<>(), decoded -> {
+                    isInitialPageLoaded = true;
+                    reconcileCached();
+                    listener.onInitialPageLoaded();
+                }));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error);
+            }
+        });
+    }
+
+    public void stop() {
+        if (liveQuery != null && childListener != null) {
+            liveQuery.removeEventListener(childListener);
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        decoder.shutdown();
+        pendingEvents.clear();
+        liveQuery = null;
+        childListener = null;
+    }
+
+    public void loadOlder() {
+        // Before the live page is in, the list head may be a cached row the server has not confirmed.
+        if (!isInitialPageLoaded || isLoadingOlder || !hasMoreOlder || messages.isEmpty()) return;
+
+        isLoadingOlder = true;
+        String oldestKey = messages.get(0).getId();
+
+        if (store == null) {
+            fetchOlder(oldestKey);
+            return;
+        }
+
+        store.loadBefore(chatId, oldestKey, pageSize, (cached, reachesStart) -> {
+            if (liveQuery == null) return;
+
+            if (reachesStart) {
+                hasMoreOlder = false;
+            }
+            if (cached.isEmpty() && hasMoreOlder) {
+                fetchOlder(oldestKey);
+            } else {
+                addOlderPage(cached);
+            }
+        });
+    }
+
+    private void fetchOlder(String oldestKey) {
+        messagesRef.orderByKey()
+                .endBefore(oldestKey)
+                .limitToLast(pageSize)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        hasMoreOlder = snapshot.getChildrenCount() >= pageSize;
+
+                        List<DataSnapshot> children = new ArrayList<>();
+                        for (DataSnapshot msgSnapshot : snapshot.getChildren()) {
+                            children.add(msgSnapshot);
+                        }
+
+                        decoder.decode(children, decoded -> {
+                            List<Message> page = addOlderPage(decoded);
+                            if (store == null) return;
+
+                            // The old head now has a known predecessor, or is known to start the chat.
+                            int headIndex = indexOf(oldestKey);
+                            if (headIndex >= 0) {
+                                page.add(messages.get(headIndex));
+                            }
+                            store.save(chatId, page, previousIds(page));
+                        });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        isLoadingOlder = false;
+                        listener.onError(error);
+                    }
+                });
+    }
+
+    // Returns the messages that were actually added.
+    private List<Message> addOlderPage(List<Message> loaded) {
+        isLoadingOlder = false;
+
+        List<Message> page = new ArrayList<>();
+        for (Message message : loaded) {
+            if (message != null && indexOf(message.getId()) < 0) {
+                page.add(message);
+            }
+        }
+
+        if (!page.isEmpty()) {
+            messages.addAll(0, page);
+            listener.onOlderMessagesLoaded(page.size());
+        }
+        return page;
+    }
+
+    private void enqueue(PendingEvent event) {
+        if (event.key == null) return;
+
+        pendingEvents.add(event);
+        if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            // Firebase raises all events of one update synchronously, so this runs once the batch is complete.
+            mainHandler.post(this::flushPendingEvents);
+        }
+    }
+
+    private void flushPendingEvents() {
+        isFlushScheduled = false;
+        if (pendingEvents.isEmpty()) return;
+
+        List<PendingEvent> batch = new ArrayList<>(pendingEvents);
+        pendingEvents.clear();
+
+        List<DataSnapshot> snapshots = new ArrayList<>(batch.size());
+        for (PendingEvent event : batch) {
+            snapshots.add(event.snapshot);
+        }
+
+        decoder.decode(snapshots, decoded -> {
+            List<Message> received = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                applyEvent(batch.get(i), decoded.get(i));
+                if (decoded.get(i) != null) {
+                    received.add(decoded.get(i));
+                }
+            }
+
+            if (store != null) {
+                store.save(chatId, received, previousIds(received));
+            }
+
+            // Nothing entered the window in the same batch: the oldest message was deleted.
+            if (pendingEvictionKey != null) {
+                removeByKey(pendingEvictionKey);
+                pendingEvictionKey = null;
+            }
+        });
+    }
+
+    private void applyEvent(PendingEvent event, Message message) {
+        switch (event.type) {
+            case EVENT_ADDED:
+                handleAdded(event.key, message);
+                break;
+            case EVENT_CHANGED:
+                handleChanged(event.key, message);
+                break;
+            case EVENT_REMOVED:
+                handleRemoved(event.key);
+                break;
+            case EVENT_MOVED:
+                handleMoved(event.key);
+                break;
+        }
+    }
+
+    private void handleAdded(String key, Message message) {
+        if (pendingEvictionKey != null) {
+            // A newer key means the window slid forward and the evicted message is simply history now.
+            if (key.compareTo(pendingEvictionKey) < 0) {
+                removeByKey(pendingEvictionKey);
+            }
+            pendingEvictionKey = null;
+        }
+
+        liveWindowSize++;
+        if (liveWindowStartKey == null || key.compareTo(liveWindowStartKey) < 0) {
+            liveWindowStartKey = key;
+        }
+        cachedOnlyKeys.remove(key);
+
+        if (message == null) return;
+
+        int index = indexOf(key);
+        if (index >= 0) {
+            messages.set(index, message);
+            listener.onChanged(index, 1, null);
+        } else {
+            int position = -index - 1;
+            messages.add(position, message);
+            listener.onInserted(position, 1);
+        }
+    }
+
+    private void handleChanged(String key, Message message) {
+        int index = indexOf(key);
+
+        if (index < 0) {
+            if (message != null) {
+                int position = -index - 1;
+                messages.add(position, message);
+                listener.onInserted(position, 1);
+            }
+        } else if (message == null) {
+            removeByKey(key);
+        } else {
+            messages.set(index, message);
+            listener.onChanged(index, 1, null);
+        }
+    }
+
+    private void handleRemoved(String key) {
+        liveWindowSize = Math.max(0, liveWindowSize - 1);
+
+        if (key.equals(liveWindowStartKey) && liveWindowSize + 1 >= pageSize) {
+            liveWindowStartKey = nextKeyAfter(key);
+            pendingEvictionKey = key;
+            return;
+        }
+
+        if (key.equals(liveWindowStartKey)) {
+            liveWindowStartKey = nextKeyAfter(key);
+        }
+        removeByKey(key);
+    }
+
+    private void handleMoved(String key) {
+        int from = indexOf(key);
+        if (from < 0) return;
+
+        Message message = messages.remove(from);
+        int to = -indexOf(key) - 1;
+        messages.add(to, message);
+        if (from != to) {
+            listener.onMoved(from, to);
+        }
+    }
+
+    private void removeByKey(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            messages.remove(index);
+            listener.onRemoved(index, 1);
+        }
+        if (store != null) {
+            store.delete(chatId, Collections.singletonList(key));
+        }
+    }
+
+    private void mergeCached(List<Message> cached) {
+        if (liveQuery == null) return;
+
+        for (Message message : cached) {
+            String key = message.getId();
+            if (isInitialPageLoaded) {
+                // Anything the live page did not deliver inside its range was deleted; anything
+                // older may not join up with the page, so it is left to loadOlder().
+                if (isInsideLiveWindow(key) && indexOf(key) < 0 && store != null) {
+                    store.delete(chatId, Collections.singletonList(key));
+                }
+                continue;
+            }
+
+            int index = indexOf(key);
+            if (index < 0) {
+                int position = -index - 1;
+                messages.add(position, message);
+                cachedOnlyKeys.add(key);
+                listener.onInserted(position, 1);
+            }
+        }
+    }
+
+    // Cached rows inside the live range that the server did not confirm were deleted. Rows older
+    // than the range are hidden but kept on disk: more than a page may have arrived since they were
+    // cached, and loadOlder() pages from the list head, so a gap before the live page would never fill.
+    private void reconcileCached() {
+        for (String key : new ArrayList<>(cachedOnlyKeys)) {
+            if (isInsideLiveWindow(key)) {
+                removeByKey(key);
+            } else {
+                hideByKey(key);
+            }
+        }
+        cachedOnlyKeys.clear();
+    }
+
+    private void hideByKey(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            messages.remove(index);
+            listener.onRemoved(index, 1);
+        }
+    }
+
+    // Server-delivered messages are contiguous back to the list head: the live page is the tail of the
+    // chat and every older page was fetched right before the head. Cached-only rows are not part of it.
+    private Map<String, String> previousIds(List<Message> saved) {
+        Map<String, String> previous = new HashMap<>();
+
+        for (Message message : saved) {
+            String key = message.getId();
+            int index = indexOf(key);
+            if (index < 0 || cachedOnlyKeys.contains(key)) continue;
+
+            String previousId = hasMoreOlder ? null : MessageStore.CHAT_START;
+            for (int i = index - 1; i >= 0; i--) {
+                String candidate = messages.get(i).getId();
+                if (!cachedOnlyKeys.contains(candidate)) {
+                    previousId = candidate;
+                    break;
+                }
+            }
+
+            if (previousId != null) {
+                previous.put(key, previousId);
+            }
+        }
+        return previous;
+    }
+
+    private boolean isInsideLiveWindow(String key) {
+        return isLiveWindowWholeChat
+                || (liveWindowStartKey != null && key.compareTo(liveWindowStartKey) >= 0);
+    }
+
+    private String nextKeyAfter(String key) {
+        int index = indexOf(key);
+        int next = index >= 0 ? index + 1 : -index - 1;
+        return next < messages.size() ? messages.get(next).getId() : null;
+    }
+
+    // Push keys sort chronologically, so the list stays ordered by key and can be binary searched.
+    private int indexOf(String key) {
+        int low = 0;
+        int high = messages.size() - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = messages.get(mid).getId().compareTo(key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.messenger.data.models;
 
+import com.example.messenger.codegen.FirebaseCodec;
+
 import java.util.HashMap;
 import java.util.Map;
 
+@FirebaseCodec
 public class Chat {
 
     private String user1;
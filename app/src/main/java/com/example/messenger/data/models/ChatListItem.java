@@ -0,0 +1,69 @@
+package com.example.messenger.data.models;
+
+import com.example.messenger.data.users.UserProfileCache;
+
+import java.util.Objects;
+
+/**
+ * One row of a chat list. Immutable: profile and inbox changes produce a new item.
+ */
+public class ChatListItem {
+
+    public final String chatId;
+    public final String otherUid;
+    public final long lastMessageTime;
+    public final int unreadCount;
+    // null until the partner's profile has loaded
+    public final String username;
+    public final String profileImageUrl;
+    public final boolean online;
+    public final long lastSeen;
+
+    public ChatListItem(String chatId, String otherUid, long lastMessageTime, int unreadCount,
+                        String username, String profileImageUrl, boolean online, long lastSeen) {
+        this.chatId = chatId;
+        this.otherUid = otherUid;
+        this.lastMessageTime = lastMessageTime;
+        this.unreadCount = unreadCount;
+        this.username = username;
+        this.profileImageUrl = profileImageUrl;
+        this.online = online;
+        this.lastSeen = lastSeen;
+    }
+
+    public static ChatListItem fromInbox(InboxEntry entry) {
+        return new ChatListItem(entry.getChatId(), entry.getOtherUid(),
+                entry.getLastMessageTime(), (int) entry.getUnreadCount(),
+                null, null, false, 0L);
+    }
+
+    // Keeps the already loaded profile fields.
+    public ChatListItem withInbox(InboxEntry entry) {
+        return new ChatListItem(chatId, otherUid, entry.getLastMessageTime(), (int) entry.getUnreadCount(),
+                username, profileImageUrl, online, lastSeen);
+    }
+
+    public ChatListItem withProfile(UserProfileCache.Profile profile) {
+        if (profile == null) {
+            return new ChatListItem(chatId, otherUid, lastMessageTime, unreadCount,
+                    "Unknown", null, false, 0L);
+        }
+        return new ChatListItem(chatId, otherUid, lastMessageTime, unreadCount,
+                profile.username != null ? profile.username : "Unknown",
+                profile.profileImageUrl, profile.online, profile.lastSeen);
+    }
+
+    public boolean hasSameContents(ChatListItem other) {
+        return lastMessageTime == other.lastMessageTime
+                && unreadCount == other.unreadCount
+                && online == other.online
+                && lastSeen == other.lastSeen
+                && Objects.equals(otherUid, other.otherUid)
+                && Objects.equals(username, other.username)
+                && Objects.equals(profileImageUrl, other.profileImageUrl);
+    }
+
+    public boolean isProfileLoaded() {
+        return username != null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.messenger.data.models;
+
+import com.example.messenger.codegen.FirebaseCodec;
+import com.example.messenger.codegen.SnapshotKey;
+
+@FirebaseCodec
+public class InboxEntry {
+
+    @SnapshotKey
+    private String chatId;
+    private String otherUid;
+    private long lastMessageTime;
+    private String lastMessagePreview;
+    private long unreadCount;
+    private boolean muted;
+    private long updatedAt;
+
+    public InboxEntry() {}
+
+    public String getChatId() { return chatId; }
+    public void setChatId(String chatId) { this.chatId = chatId; }
+
+    public String getOtherUid() { return otherUid; }
+    public void setOtherUid(String otherUid) { this.otherUid = otherUid; }
+
+    public long getLastMessageTime() { return lastMessageTime; }
+    public void setLastMessageTime(long lastMessageTime) { this.lastMessageTime = lastMessageTime; }
+
+    public String getLastMessagePreview() { return lastMessagePreview; }
+    public void setLastMessagePreview(String lastMessagePreview) { this.lastMessagePreview = lastMessagePreview; }
+
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+
+    public boolean isMuted() { return muted; }
+    public void setMuted(boolean muted) { this.muted = muted; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,8 +1,14 @@
 package com.example.messenger.data.models;
 
+import com.example.messenger.codegen.FirebaseCodec;
+import com.example.messenger.codegen.SnapshotKey;
+
+@FirebaseCodec
 public class Message {
 
-    private String id, ownerId, text, date;
+    @SnapshotKey
+    private String id;
+    private String ownerId, text, date;
     private long timestamp;
 
     private String fileUrl;
@@ -11,6 +17,7 @@ public class Message {
     private long fileSize;
     private long voiceDuration;
     private long videoDuration;
+    private String thumbnailUrl;
 
     private boolean isForwarded;
     private String forwardedFrom;
@@ -90,6 +97,9 @@ public class Message {
     public long getVideoDuration() { return videoDuration; }
     public void setVideoDuration(long videoDuration) { this.videoDuration = videoDuration; }
 
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
     public boolean isForwarded() { return isForwarded; }
     public void setForwarded(boolean forwarded) { isForwarded = forwarded; }
 
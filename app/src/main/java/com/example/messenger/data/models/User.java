@@ -1,5 +1,8 @@
 package com.example.messenger.data.models;
 
+import com.example.messenger.codegen.FirebaseCodec;
+
+@FirebaseCodec
 public class User {
 
     public String uid, username, profileImageUrl;
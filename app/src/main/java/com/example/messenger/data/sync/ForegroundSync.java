@@ -0,0 +1,74 @@
+package com.example.messenger.data.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.example.messenger.notifications.InboxNotifier;
+import com.google.firebase.auth.FirebaseAuth;
+
+/**
+ * In batched mode there is no listener service, so the live inbox subscription
+ * only exists while some activity of the app is started.
+ */
+public class ForegroundSync implements DefaultLifecycleObserver {
+
+    private static ForegroundSync instance;
+
+    private Context appContext;
+    private InboxNotifier inboxNotifier;
+    private String listeningUid;
+
+    public static synchronized ForegroundSync getInstance() {
+        if (instance == null) {
+            instance = new ForegroundSync();
+        }
+        return instance;
+    }
+
+    private ForegroundSync() {}
+
+    public void install(Context context) {
+        appContext = context.getApplicationContext();
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(this);
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        refresh(appContext);
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        stopListening();
+    }
+
+    void refresh(Context context) {
+        boolean isForeground = ProcessLifecycleOwner.get().getLifecycle()
+                .getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        String uid = FirebaseAuth.getInstance().getUid();
+
+        if (context == null || !isForeground || uid == null || !SyncMode.isBatched(context)) {
+            stopListening();
+            return;
+        }
+        if (inboxNotifier != null && uid.equals(listeningUid)) return;
+
+        stopListening();
+        listeningUid = uid;
+        inboxNotifier = new InboxNotifier(context, uid);
+        inboxNotifier.start();
+    }
+
+    private void stopListening() {
+        if (inboxNotifier != null) {
+            inboxNotifier.stop();
+            inboxNotifier = null;
+        }
+        listeningUid = null;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.messenger.data.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.data.models.InboxEntry;
+import com.example.messenger.data.models.InboxEntryCodec;
+import com.example.messenger.data.users.UserDirectory;
+import com.example.messenger.notifications.InboxNotifier;
+import com.example.messenger.notifications.MessageNotifier;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched sync: reads only the inbox rows that changed since the stored cursor
+ * and posts their notifications in one go.
+ */
+public class InboxSyncWorker extends Worker {
+
+    private static final String TAG = "InboxSyncWorker";
+    private static final String WORK_NAME = "inbox_sync";
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                InboxSyncWorker.class, AppConfig.Sync.BATCH_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    public InboxSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String uid = FirebaseAuth.getInstance().getUid();
+        if (uid == null || !SyncMode.isBatched(context)) return Result.success();
+
+        long cursor = SyncMode.getCursor(context, uid);
+        long timeout = AppConfig.Sync.BATCH_TIMEOUT_SECONDS;
+
+        try {
+            DataSnapshot snapshot = Tasks.await(InboxIndex.inboxRef(uid)
+                    .orderByChild(InboxIndex.UPDATED_AT)
+                    .startAfter(cursor)
+                    .get(), timeout, TimeUnit.SECONDS);
+
+            long newest = cursor;
+            List<InboxEntry> fresh = new ArrayList<>();
+            for (DataSnapshot row : snapshot.getChildren()) {
+                InboxEntry entry = InboxEntryCodec.fromSnapshot(row);
+                if (entry == null || entry.getChatId() == null) continue;
+
+                newest = Math.max(newest, entry.getUpdatedAt());
+                if (entry.getUnreadCount() > 0 && !entry.isMuted() && entry.getOtherUid() != null) {
+                    fresh.add(entry);
+                }
+            }
+
+            Map<String, String> names = new HashMap<>();
+            for (InboxEntry entry : fresh) {
+                if (names.containsKey(entry.getOtherUid())) continue;
+
+                DataSnapshot name = Tasks.await(FirebaseDatabase.getInstance()
+                        .getReference(UserDirectory.entryPath(entry.getOtherUid()))
+                        .child("username")
+                        .get(), timeout, TimeUnit.SECONDS);
+                String username = name.getValue(String.class);
+                names.put(entry.getOtherUid(), username != null ? username : "Unknown User");
+            }
+
+            if (!fresh.isEmpty()) {
+                post(context, fresh, names);
+            }
+            SyncMode.advanceCursor(context, uid, newest);
+            Log.d(TAG, "Synced " + fresh.size() + " chats with new messages");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Inbox sync failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    // MessageNotifier lives on the main thread; wait for the batch to be posted.
+    private static void post(Context context, List<InboxEntry> entries, Map<String, String> names)
+            throws InterruptedException {
+        CountDownLatch posted = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            MessageNotifier notifier = MessageNotifier.getInstance();
+            for (InboxEntry entry : entries) {
+                notifier.addWithTotal(context, entry.getChatId(), names.get(entry.getOtherUid()),
+                        InboxNotifier.previewText(entry), entry.getUnreadCount());
+            }
+            notifier.flush();
+            posted.countDown();
+        });
+        posted.await();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.messenger.data.sync;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Value listeners shared by database path. Each path holds one Firebase listener no matter how
+ * many owners subscribe to it; an owner subscribing to the same path again only replaces its
+ * callback. Every subscription is released when its {@link LifecycleOwner} is destroyed.
+ * Main thread only.
+ */
+public class ListenerRegistry {
+
+    private static final String TAG = "ListenerRegistry";
+
+    public interface Subscriber {
+        void onData(@NonNull DataSnapshot snapshot);
+
+        default void onCancelled(@NonNull DatabaseError error) {}
+    }
+
+    private static class PathListener {
+        DatabaseReference ref;
+        ValueEventListener listener;
+        DataSnapshot lastSnapshot;
+        final Map<LifecycleOwner, Subscriber> subscribers = new LinkedHashMap<>();
+    }
+
+    private static ListenerRegistry instance;
+
+    private final Map<String, PathListener> listeners = new HashMap<>();
+    private final Map<LifecycleOwner, Set<String>> pathsByOwner = new HashMap<>();
+
+    public static synchronized ListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new ListenerRegistry();
+        }
+        return instance;
+    }
+
+    private ListenerRegistry() {}
+
+    public void subscribe(LifecycleOwner owner, String path, Subscriber subscriber) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+
+        PathListener pathListener = listeners.get(path);
+        if (pathListener == null) {
+            pathListener = attach(path);
+        }
+        pathListener.subscribers.put(owner, subscriber);
+
+        Set<String> paths = pathsByOwner.get(owner);
+        if (paths == null) {
+            paths = new HashSet<>();
+            pathsByOwner.put(owner, paths);
+            owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+                @Override
+                public void onDestroy(@NonNull LifecycleOwner lifecycleOwner) {
+                    unsubscribeAll(lifecycleOwner);
+                }
+            });
+        }
+        paths.add(path);
+
+        if (pathListener.lastSnapshot != null) {
+            subscriber.onData(pathListener.lastSnapshot);
+        }
+    }
+
+    public void unsubscribe(LifecycleOwner owner, String path) {
+        Set<String> paths = pathsByOwner.get(owner);
+        if (paths != null) {
+            paths.remove(path);
+        }
+        release(owner, path);
+    }
+
+    public void unsubscribeAll(LifecycleOwner owner) {
+        Set<String> paths = pathsByOwner.remove(owner);
+        if (paths == null) return;
+
+        for (String path : paths) {
+            release(owner, path);
+        }
+    }
+
+    public int getActiveListenerCount() {
+        return listeners.size();
+    }
+
+    public int getSubscriptionCount() {
+        int count = 0;
+        for (PathListener pathListener : listeners.values()) {
+            count += pathListener.subscribers.size();
+        }
+        return count;
+    }
+
+    private PathListener attach(String path) {
+        PathListener pathListener = new PathListener();
+        pathListener.ref = FirebaseDatabase.getInstance().getReference(path);
+        pathListener.listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                pathListener.lastSnapshot = snapshot;
+                for (Subscriber subscriber : new ArrayList<>(pathListener.subscribers.values())) {
+                    subscriber.onData(snapshot);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                for (Subscriber subscriber : new ArrayList<>(pathListener.subscribers.values())) {
+                    subscriber.onCancelled(error);
+                }
+            }
+        };
+
+        listeners.put(path, pathListener);
+        pathListener.ref.addValueEventListener(pathListener.listener);
+        Log.d(TAG, "Attached " + path + ", active listeners: " + listeners.size());
+        return pathListener;
+    }
+
+    private void release(LifecycleOwner owner, String path) {
+        PathListener pathListener = listeners.get(path);
+        if (pathListener == null) return;
+
+        pathListener.subscribers.remove(owner);
+        if (pathListener.subscribers.isEmpty()) {
+            pathListener.ref.removeEventListener(pathListener.listener);
+            listeners.remove(path);
+            Log.d(TAG, "Detached " + path + ", active listeners: " + listeners.size());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.messenger.data.sync;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.services.MessageListenerService;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+
+/**
+ * How new messages reach the user when the app is not on screen:
+ * LIVE keeps the foreground listener service running, BATCHED stops it and
+ * checks the inbox periodically with {@link InboxSyncWorker}. In both modes the
+ * inbox is listened to live while the app is in the foreground.
+ */
+public class SyncMode {
+
+    public static final String LIVE = "live";
+    public static final String BATCHED = "batched";
+
+    private static final String PREFS_NAME = "sync_mode";
+    private static final String KEY_MODE = "mode";
+    private static final String KEY_CURSOR = "cursor_";
+
+    public static String get(Context context) {
+        return prefs(context).getString(KEY_MODE, LIVE);
+    }
+
+    public static boolean isBatched(Context context) {
+        return BATCHED.equals(get(context));
+    }
+
+    public static void set(Context context, String mode) {
+        prefs(context).edit().putString(KEY_MODE, mode).apply();
+
+        // Don't report the whole existing inbox on the first batch.
+        String uid = FirebaseAuth.getInstance().getUid();
+        if (BATCHED.equals(mode) && uid != null && getCursor(context, uid) == 0L) {
+            seedCursor(context, uid);
+        }
+        apply(context);
+    }
+
+    // Starts the cursor at the newest row's server time, so no device clock is involved.
+    private static void seedCursor(Context context, String uid) {
+        Context appContext = context.getApplicationContext();
+        InboxIndex.inboxRef(uid)
+                .orderByChild(InboxIndex.UPDATED_AT)
+                .limitToLast(1)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    for (DataSnapshot row : snapshot.getChildren()) {
+                        Long updatedAt = row.child(InboxIndex.UPDATED_AT).getValue(Long.class);
+                        if (updatedAt != null) advanceCursor(appContext, uid, updatedAt);
+                    }
+                });
+    }
+
+    // Starts whatever the current mode needs; called once the user is signed in.
+    public static void apply(Context context) {
+        Context appContext = context.getApplicationContext();
+        Intent service = new Intent(appContext, MessageListenerService.class);
+
+        if (isBatched(appContext)) {
+            appContext.stopService(service);
+            InboxSyncWorker.schedule(appContext);
+        } else {
+            InboxSyncWorker.cancel(appContext);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                appContext.startForegroundService(service);
+            } else {
+                appContext.startService(service);
+            }
+        }
+        ForegroundSync.getInstance().refresh(appContext);
+    }
+
+    // Server updatedAt of the newest inbox row already notified about.
+    public static long getCursor(Context context, String uid) {
+        return prefs(context).getLong(KEY_CURSOR + uid, 0L);
+    }
+
+    public static void advanceCursor(Context context, String uid, long time) {
+        SharedPreferences prefs = prefs(context);
+        if (time > prefs.getLong(KEY_CURSOR + uid, 0L)) {
+            prefs.edit().putLong(KEY_CURSOR + uid, time).apply();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
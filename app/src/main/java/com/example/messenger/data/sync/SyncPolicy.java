@@ -0,0 +1,123 @@
+package com.example.messenger.data.sync;
+
+import androidx.annotation.NonNull;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.chats.InboxIndex;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides what stays mirrored in the Firebase disk cache for the signed-in user:
+ * their profile, their inbox and the live message window of the most recently
+ * active chats. Chats that fall out of the top N stop being kept in sync.
+ */
+public class SyncPolicy {
+
+    private static SyncPolicy instance;
+
+    private String uid;
+    private Query topChatsQuery;
+    private ValueEventListener topChatsListener;
+    private final Map<String, Query> syncedChats = new HashMap<>();
+
+    public static synchronized SyncPolicy getInstance() {
+        if (instance == null) {
+            instance = new SyncPolicy();
+        }
+        return instance;
+    }
+
+    private SyncPolicy() {}
+
+    public void install() {
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            String currentUid = auth.getUid();
+            if (currentUid == null ? uid == null : currentUid.equals(uid)) return;
+
+            stop();
+            if (currentUid != null) {
+                start(currentUid);
+            }
+        });
+    }
+
+    // The same window MessageStream listens to, so opening a synced chat is served from disk.
+    public static Query liveWindowQuery(String chatId) {
+        return FirebaseDatabase.getInstance()
+                .getReference("Chats")
+                .child(chatId)
+                .child("messages")
+                .orderByKey()
+                .limitToLast(AppConfig.Messages.PAGE_SIZE);
+    }
+
+    private void start(String uid) {
+        this.uid = uid;
+
+        FirebaseDatabase.getInstance().getReference("Users").child(uid).keepSynced(true);
+        InboxIndex.inboxRef(uid).keepSynced(true);
+
+        topChatsQuery = InboxIndex.inboxRef(uid)
+                .orderByChild("lastMessageTime")
+                .limitToLast(AppConfig.Sync.KEEP_SYNCED_CHATS);
+        topChatsListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Set<String> topChatIds = new HashSet<>();
+                for (DataSnapshot row : snapshot.getChildren()) {
+                    topChatIds.add(row.getKey());
+                }
+                updateSyncedChats(topChatIds);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {}
+        };
+        topChatsQuery.addValueEventListener(topChatsListener);
+    }
+
+    private void stop() {
+        if (uid == null) return;
+
+        if (topChatsQuery != null && topChatsListener != null) {
+            topChatsQuery.removeEventListener(topChatsListener);
+        }
+        topChatsQuery = null;
+        topChatsListener = null;
+
+        updateSyncedChats(new HashSet<>());
+        FirebaseDatabase.getInstance().getReference("Users").child(uid).keepSynced(false);
+        InboxIndex.inboxRef(uid).keepSynced(false);
+        uid = null;
+    }
+
+    private void updateSyncedChats(Set<String> topChatIds) {
+        Iterator<Map.Entry<String, Query>> iterator = syncedChats.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Query> entry = iterator.next();
+            if (!topChatIds.contains(entry.getKey())) {
+                entry.getValue().keepSynced(false);
+                iterator.remove();
+            }
+        }
+
+        for (String chatId : topChatIds) {
+            if (chatId == null || syncedChats.containsKey(chatId)) continue;
+
+            Query query = liveWindowQuery(chatId);
+            query.keepSynced(true);
+            syncedChats.put(chatId, query);
+        }
+    }
+}
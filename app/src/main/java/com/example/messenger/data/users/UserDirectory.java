@@ -0,0 +1,106 @@
+package com.example.messenger.data.users;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.messenger.data.models.User;
+import com.example.messenger.utils.SearchKeys;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Public, searchable part of every profile at {@code UserDirectory/{uid}}:
+ * username, usernameKey (normalized, for prefix queries) and profileImageUrl.
+ * Private fields (email, phone, birthday) stay in {@code Users}.
+ * Needs {@code ".indexOn": "usernameKey"} on UserDirectory in the database rules.
+ */
+public class UserDirectory {
+
+    private static final String TAG = "UserDirectory";
+
+    public static final String ROOT = "UserDirectory";
+    public static final String KEY_FIELD = "usernameKey";
+
+    private static final String PREFS_NAME = "user_directory";
+    private static final String KEY_PUBLISHED = "published_";
+
+    public static String entryPath(String uid) {
+        return ROOT + "/" + uid;
+    }
+
+    public static void putEntry(Map<String, Object> updates, String uid,
+                                String username, @Nullable String profileImageUrl) {
+        putUsername(updates, uid, username);
+        putProfileImage(updates, uid, profileImageUrl);
+    }
+
+    public static void putUsername(Map<String, Object> updates, String uid, String username) {
+        updates.put(entryPath(uid) + "/username", username);
+        updates.put(entryPath(uid) + "/" + KEY_FIELD, SearchKeys.normalize(username));
+    }
+
+    public static void putProfileImage(Map<String, Object> updates, String uid, @Nullable String profileImageUrl) {
+        updates.put(entryPath(uid) + "/profileImageUrl", profileImageUrl);
+    }
+
+    /**
+     * One page of users whose name starts with the prefix, in usernameKey order.
+     * Pass the key and uid of the last row of the previous page to continue after it.
+     */
+    public static Query page(String prefix, @Nullable String afterKey, @Nullable String afterUid, int limit) {
+        String key = SearchKeys.normalize(prefix);
+        Query query = FirebaseDatabase.getInstance().getReference(ROOT).orderByChild(KEY_FIELD);
+
+        query = afterKey != null && afterUid != null
+                ? query.startAfter(afterKey, afterUid)
+                : query.startAt(key);
+
+        return query.endAt(key + "\uf8ff").limitToFirst(limit);
+    }
+
+    @Nullable
+    public static User fromSnapshot(DataSnapshot snapshot) {
+        String username = snapshot.child("username").getValue(String.class);
+        if (snapshot.getKey() == null || username == null) return null;
+
+        return new User(snapshot.getKey(), username,
+                snapshot.child("profileImageUrl").getValue(String.class));
+    }
+
+    @Nullable
+    public static String keyOf(DataSnapshot snapshot) {
+        return snapshot.child(KEY_FIELD).getValue(String.class);
+    }
+
+    /**
+     * One-time migration for accounts created before the directory existed:
+     * copies the signed-in user's public fields from their profile.
+     */
+    public static void publishIfNeeded(Context context, String uid) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_PUBLISHED + uid, false)) return;
+
+        FirebaseDatabase.getInstance().getReference("Users").child(uid).get()
+                .addOnSuccessListener(snapshot -> {
+                    String username = snapshot.child("username").getValue(String.class);
+                    if (username == null) return;
+
+                    Map<String, Object> updates = new HashMap<>();
+                    putEntry(updates, uid, username, snapshot.child("profileImageUrl").getValue(String.class));
+
+                    FirebaseDatabase.getInstance().getReference()
+                            .updateChildren(updates)
+                            .addOnSuccessListener(aVoid -> prefs.edit().putBoolean(KEY_PUBLISHED + uid, true).apply())
+                            .addOnFailureListener(e -> Log.e(TAG, "Directory backfill failed: " + e.getMessage()));
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Directory backfill read failed: " + e.getMessage()));
+    }
+}
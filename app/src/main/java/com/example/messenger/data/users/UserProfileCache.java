@@ -0,0 +1,186 @@
+package com.example.messenger.data.users;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.sync.ListenerRegistry;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache of user profiles (username, avatar, presence).
+ * Each cached uid holds one subscription to {@code Users/{uid}} in the {@link ListenerRegistry},
+ * owned by the process lifecycle and shared with screens listening to the same path;
+ * least recently used entries without observers are evicted past the configured capacity.
+ * Main thread only.
+ */
+public class UserProfileCache {
+
+    public static class Profile {
+        public final String uid;
+        public final String username;
+        public final String profileImageUrl;
+        public final boolean online;
+        public final long lastSeen;
+
+        Profile(String uid, String username, String profileImageUrl, boolean online, long lastSeen) {
+            this.uid = uid;
+            this.username = username;
+            this.profileImageUrl = profileImageUrl;
+            this.online = online;
+            this.lastSeen = lastSeen;
+        }
+
+        public boolean hasAvatar() {
+            return profileImageUrl != null && !profileImageUrl.isEmpty();
+        }
+    }
+
+    public interface Observer {
+        // profile is null when the user does not exist or the read was cancelled.
+        void onProfile(@Nullable Profile profile);
+    }
+
+    private static class Entry {
+        String path;
+        Profile profile;
+        boolean isLoaded;
+        final List<Observer> observers = new ArrayList<>();
+        final List<Observer> pendingRequests = new ArrayList<>();
+
+        boolean isInUse() {
+            return !observers.isEmpty() || !pendingRequests.isEmpty();
+        }
+    }
+
+    private static UserProfileCache instance;
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static synchronized UserProfileCache getInstance() {
+        if (instance == null) {
+            instance = new UserProfileCache(AppConfig.Users.PROFILE_CACHE_SIZE);
+        }
+        return instance;
+    }
+
+    private UserProfileCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Nullable
+    public Profile peek(String uid) {
+        Entry entry = uid != null ? entries.get(uid) : null;
+        return entry != null ? entry.profile : null;
+    }
+
+    // One-shot lookup: answered synchronously when the profile is already cached.
+    public void request(String uid, Observer callback) {
+        if (uid == null) {
+            callback.onProfile(null);
+            return;
+        }
+
+        Entry entry = obtain(uid);
+        if (entry.isLoaded) {
+            callback.onProfile(entry.profile);
+        } else {
+            entry.pendingRequests.add(callback);
+        }
+        trim();
+    }
+
+    public void observe(String uid, Observer observer) {
+        if (uid == null) return;
+
+        Entry entry = obtain(uid);
+        if (!entry.observers.contains(observer)) {
+            entry.observers.add(observer);
+        }
+        if (entry.isLoaded) {
+            observer.onProfile(entry.profile);
+        }
+        trim();
+    }
+
+    public void removeObserver(String uid, Observer observer) {
+        Entry entry = uid != null ? entries.get(uid) : null;
+        if (entry == null) return;
+
+        entry.observers.remove(observer);
+        trim();
+    }
+
+    private Entry obtain(String uid) {
+        Entry entry = entries.get(uid);
+        if (entry != null) return entry;
+
+        Entry created = new Entry();
+        created.path = path(uid);
+        entries.put(uid, created);
+        ListenerRegistry.getInstance().subscribe(ProcessLifecycleOwner.get(), created.path,
+                new ListenerRegistry.Subscriber() {
+                    @Override
+                    public void onData(@NonNull DataSnapshot snapshot) {
+                        created.profile = snapshot.exists() ? toProfile(uid, snapshot) : null;
+                        deliver(created);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        deliver(created);
+                    }
+                });
+        return created;
+    }
+
+    private void deliver(Entry entry) {
+        entry.isLoaded = true;
+
+        List<Observer> requests = new ArrayList<>(entry.pendingRequests);
+        entry.pendingRequests.clear();
+        for (Observer request : requests) {
+            request.onProfile(entry.profile);
+        }
+
+        for (Observer observer : new ArrayList<>(entry.observers)) {
+            observer.onProfile(entry.profile);
+        }
+    }
+
+    private void trim() {
+        if (entries.size() <= capacity) return;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.isInUse()) continue;
+
+            ListenerRegistry.getInstance().unsubscribe(ProcessLifecycleOwner.get(), entry.path);
+            iterator.remove();
+        }
+    }
+
+    public static String path(String uid) {
+        return "Users/" + uid;
+    }
+
+    public static Profile toProfile(String uid, DataSnapshot snapshot) {
+        String username = snapshot.child("username").getValue(String.class);
+        String profileImageUrl = snapshot.child("profileImageUrl").getValue(String.class);
+        Boolean online = snapshot.child("online").getValue(Boolean.class);
+        Long lastSeen = snapshot.child("lastSeen").getValue(Long.class);
+
+        return new Profile(uid, username, profileImageUrl,
+                online != null && online, lastSeen != null ? lastSeen : 0L);
+    }
+}
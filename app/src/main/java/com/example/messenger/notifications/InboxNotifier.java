@@ -0,0 +1,86 @@
+package com.example.messenger.notifications;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.messenger.data.chats.InboxWatcher;
+import com.example.messenger.data.models.InboxEntry;
+import com.example.messenger.data.sync.SyncMode;
+import com.example.messenger.data.users.UserProfileCache;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Turns new-message events of the live inbox subscription into notifications.
+ * The mute flag comes with the inbox row and sender names are kept warm in the
+ * profile cache, so no read happens per message. Main thread only.
+ */
+public class InboxNotifier {
+
+    private static final String TAG = "InboxNotifier";
+
+    private final Context context;
+    private final String uid;
+    private final InboxWatcher inboxWatcher;
+    private final Set<String> observedSenders = new HashSet<>();
+    // Keeps partner profiles pinned in the cache while listening.
+    private final UserProfileCache.Observer senderObserver = profile -> {};
+
+    public InboxNotifier(Context context, String uid) {
+        this.context = context.getApplicationContext();
+        this.uid = uid;
+        this.inboxWatcher = new InboxWatcher(uid, new InboxWatcher.Listener() {
+            @Override
+            public void onNewMessages(InboxEntry entry, long newCount) {
+                Log.d(TAG, "New messages in chat: " + entry.getChatId() + " (+" + newCount + ")");
+                notifyIfNotMuted(entry, newCount);
+            }
+
+            @Override
+            public void onRow(InboxEntry entry) {
+                observeSender(entry.getOtherUid());
+            }
+        });
+    }
+
+    public void start() {
+        inboxWatcher.start();
+    }
+
+    public void stop() {
+        inboxWatcher.stop();
+        for (String senderUid : observedSenders) {
+            UserProfileCache.getInstance().removeObserver(senderUid, senderObserver);
+        }
+        observedSenders.clear();
+    }
+
+    private void notifyIfNotMuted(InboxEntry entry, long newCount) {
+        SyncMode.advanceCursor(context, uid, entry.getUpdatedAt());
+
+        if (entry.isMuted()) {
+            Log.d(TAG, "Notifications muted for chat: " + entry.getChatId());
+            return;
+        }
+
+        String text = previewText(entry);
+        UserProfileCache.getInstance().request(entry.getOtherUid(), profile -> {
+            String username = profile != null ? profile.username : null;
+            if (username == null) username = "Unknown User";
+
+            Log.d(TAG, "Showing notification from: " + username);
+            MessageNotifier.getInstance().add(context, entry.getChatId(), username, text, newCount);
+        });
+    }
+
+    private void observeSender(String senderUid) {
+        if (senderUid == null || !observedSenders.add(senderUid)) return;
+        UserProfileCache.getInstance().observe(senderUid, senderObserver);
+    }
+
+    public static String previewText(InboxEntry entry) {
+        String text = entry.getLastMessagePreview();
+        return text == null || text.isEmpty() ? "New message" : text;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.messenger.notifications;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.Person;
+
+import com.example.messenger.R;
+import com.example.messenger.config.AppConfig;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects incoming messages into one MessagingStyle notification per chat plus a group
+ * summary. Notifications are rebuilt at most once per update window however many messages
+ * arrive; a chat alerts again only once its last alert is older than the alert window.
+ * Swiping a notification away drops its chat here too. Main thread only.
+ */
+public class MessageNotifier {
+
+    private static final String TAG = "MessageNotifier";
+
+    private static class ChatMessages {
+        String title;
+        int unreadCount;
+        long lastAlertTime;
+        final Deque<NotificationCompat.MessagingStyle.Message> messages = new ArrayDeque<>();
+    }
+
+    private static MessageNotifier instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, ChatMessages> chats = new LinkedHashMap<>();
+    private final Set<String> dirtyChats = new LinkedHashSet<>();
+    private final Person me = new Person.Builder().setName("You").build();
+    private final Runnable postRunnable = this::postDirty;
+
+    private Context appContext;
+    private String activeChatId;
+    private long lastPostTime;
+    private boolean isPostScheduled;
+
+    public static synchronized MessageNotifier getInstance() {
+        if (instance == null) {
+            instance = new MessageNotifier();
+        }
+        return instance;
+    }
+
+    private MessageNotifier() {}
+
+    // newCount: how many messages the text stands for (the inbox only carries the latest preview).
+    public void add(Context context, String chatId, String senderName, String text, long newCount) {
+        ChatMessages chat = append(context, chatId, senderName, text);
+        if (chat != null) chat.unreadCount += (int) Math.max(1, newCount);
+    }
+
+    // Same, with the chat's total unread count as reported by a batch read of the inbox.
+    public void addWithTotal(Context context, String chatId, String senderName, String text, long totalUnread) {
+        ChatMessages chat = append(context, chatId, senderName, text);
+        if (chat != null) chat.unreadCount = (int) Math.max(1, totalUnread);
+    }
+
+    private ChatMessages append(Context context, String chatId, String senderName, String text) {
+        if (chatId == null || chatId.equals(activeChatId)) return null;
+        appContext = context.getApplicationContext();
+
+        ChatMessages chat = chats.get(chatId);
+        if (chat == null) {
+            chat = new ChatMessages();
+            chats.put(chatId, chat);
+        }
+        chat.title = senderName;
+
+        Person sender = new Person.Builder().setName(senderName).build();
+        chat.messages.addLast(new NotificationCompat.MessagingStyle.Message(
+                text, System.currentTimeMillis(), sender));
+        while (chat.messages.size() > AppConfig.Notifications.MESSAGES_PER_CHAT) {
+            chat.messages.removeFirst();
+        }
+
+        dirtyChats.add(chatId);
+        schedulePost();
+        return chat;
+    }
+
+    // The chat is on screen: drop what was collected for it and don't notify about it.
+    public void setActiveChat(Context context, String chatId) {
+        activeChatId = chatId;
+        if (chatId != null) clear(context, chatId);
+    }
+
+    public void clear(Context context, String chatId) {
+        dirtyChats.remove(chatId);
+        if (chats.remove(chatId) == null) return;
+
+        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm == null) return;
+
+        nm.cancel(chatId.hashCode());
+        if (chats.isEmpty()) {
+            nm.cancel(AppConfig.Notifications.SUMMARY_ID);
+        } else {
+            nm.notify(AppConfig.Notifications.SUMMARY_ID, buildSummary(context).build());
+        }
+    }
+
+    public void clearAll(Context context) {
+        dirtyChats.clear();
+        chats.clear();
+
+        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm != null) {
+            nm.cancel(AppConfig.Notifications.SUMMARY_ID);
+        }
+    }
+
+    // Posts whatever is pending right away, e.g. at the end of a background batch.
+    public void flush() {
+        handler.removeCallbacks(postRunnable);
+        postDirty();
+    }
+
+    private void schedulePost() {
+        if (isPostScheduled) return;
+
+        long delay = lastPostTime + AppConfig.Notifications.UPDATE_WINDOW_MS - SystemClock.elapsedRealtime();
+        isPostScheduled = true;
+        handler.postDelayed(postRunnable, Math.max(0, delay));
+    }
+
+    private void postDirty() {
+        isPostScheduled = false;
+        lastPostTime = SystemClock.elapsedRealtime();
+        if (dirtyChats.isEmpty() || appContext == null) return;
+
+        NotificationManager nm = (NotificationManager) appContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm == null) {
+            Log.e(TAG, "NotificationManager is null");
+            return;
+        }
+
+        try {
+            for (String chatId : dirtyChats) {
+                ChatMessages chat = chats.get(chatId);
+                if (chat != null) {
+                    nm.notify(chatId.hashCode(), buildChat(appContext, chatId, chat).build());
+                }
+            }
+            nm.notify(AppConfig.Notifications.SUMMARY_ID, buildSummary(appContext).build());
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing notification: " + e.getMessage());
+        }
+        dirtyChats.clear();
+    }
+
+    private NotificationCompat.Builder buildChat(Context context, String chatId, ChatMessages chat) {
+        NotificationCompat.MessagingStyle style = new NotificationCompat.MessagingStyle(me);
+        for (NotificationCompat.MessagingStyle.Message message : chat.messages) {
+            style.addMessage(message);
+        }
+
+        // A burst alerts once; a message after a quiet spell alerts again.
+        long now = SystemClock.elapsedRealtime();
+        boolean shouldAlert = chat.lastAlertTime == 0
+                || now - chat.lastAlertTime >= AppConfig.Notifications.ALERT_WINDOW_MS;
+        if (shouldAlert) {
+            chat.lastAlertTime = now;
+        }
+
+        return new NotificationCompat.Builder(context, NotificationHelper.CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle(chat.title)
+                .setContentText(chat.messages.getLast().getText())
+                .setStyle(style)
+                .setNumber(chat.unreadCount)
+                .setGroup(AppConfig.Notifications.GROUP_KEY)
+                .setOnlyAlertOnce(!shouldAlert)
+                .setAutoCancel(true)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setContentIntent(NotificationHelper.chatIntent(context, chatId))
+                .setDeleteIntent(dismissIntent(context, chatId));
+    }
+
+    private NotificationCompat.Builder buildSummary(Context context) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        int total = 0;
+        for (ChatMessages chat : chats.values()) {
+            style.addLine(chat.title + ": " + chat.messages.getLast().getText());
+            total += chat.unreadCount;
+        }
+        style.setSummaryText(total + " new messages");
+
+        return new NotificationCompat.Builder(context, NotificationHelper.CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle("Messenger")
+                .setContentText(total + " new messages in " + chats.size() + " chats")
+                .setStyle(style)
+                .setGroup(AppConfig.Notifications.GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .setOnlyAlertOnce(true)
+                .setAutoCancel(true)
+                .setDeleteIntent(dismissIntent(context, null));
+    }
+
+    // chatId null stands for the summary, i.e. the whole group.
+    private static PendingIntent dismissIntent(Context context, String chatId) {
+        Intent intent = new Intent(context, NotificationDismissReceiver.class);
+        if (chatId != null) {
+            intent.putExtra(NotificationDismissReceiver.EXTRA_CHAT_ID, chatId);
+        }
+        int requestCode = chatId != null ? chatId.hashCode() : AppConfig.Notifications.SUMMARY_ID;
+        return PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
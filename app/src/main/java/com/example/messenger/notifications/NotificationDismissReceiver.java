@@ -0,0 +1,24 @@
+package com.example.messenger.notifications;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Delete intent of message notifications: a swiped-away chat (or the whole group, via the
+ * summary) is dropped from {@link MessageNotifier} so it does not come back in the next rebuild.
+ */
+public class NotificationDismissReceiver extends BroadcastReceiver {
+
+    static final String EXTRA_CHAT_ID = "chatId";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String chatId = intent.getStringExtra(EXTRA_CHAT_ID);
+        if (chatId != null) {
+            MessageNotifier.getInstance().clear(context, chatId);
+        } else {
+            MessageNotifier.getInstance().clearAll(context);
+        }
+    }
+}
@@ -10,8 +10,9 @@ import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 
-import com.example.messenger.ui.activities.ChatActivity;
 import com.example.messenger.R;
+
+import com.example.messenger.ui.activities.ChatActivity;
 import com.example.messenger.config.AppConfig;
 
 public class NotificationHelper {
@@ -39,44 +40,39 @@ public class NotificationHelper {
         }
     }
 
-    public static void showMessageNotification(Context ctx, String title, String text, String chatId) {
-        try {
-            Log.d(TAG, "Showing notification - Title: " + title + ", Text: " + text);
+    public static void showUploadFailed(Context ctx, String uploadId, String chatId, String fileName) {
+        createChannel(ctx);
 
-            Intent chatIntent = new Intent(ctx, ChatActivity.class);
-            chatIntent.putExtra("chatId", chatId);
-            chatIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle("Attachment not sent")
+                .setContentText((fileName != null ? fileName : "File") + " could not be sent")
+                .setAutoCancel(true)
+                .setContentIntent(chatIntent(ctx, chatId));
 
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            flags |= PendingIntent.FLAG_IMMUTABLE;
+        NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm == null) return;
 
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                    ctx,
-                    chatId.hashCode(),
-                    chatIntent,
-                    flags
-            );
+        try {
+            nm.notify(uploadId.hashCode(), builder.build());
+        } catch (SecurityException e) {
+            Log.e(TAG, "Cannot show upload failure: " + e.getMessage());
+        }
+    }
 
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, CHANNEL_ID)
-                    .setSmallIcon(R.drawable.ic_notification)
-                    .setContentTitle(title)
-                    .setContentText(text)
-                    .setAutoCancel(true)
-                    .setPriority(NotificationCompat.PRIORITY_HIGH)
-                    .setDefaults(NotificationCompat.DEFAULT_ALL)
-                    .setContentIntent(pendingIntent);
+    public static PendingIntent chatIntent(Context ctx, String chatId) {
+        Intent chatIntent = new Intent(ctx, ChatActivity.class);
+        chatIntent.putExtra("chatId", chatId);
+        chatIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
 
-            NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
-            if (nm != null) {
-                nm.notify(chatId.hashCode(), builder.build());
-                Log.d(TAG, "Notification shown successfully");
-            } else {
-                Log.e(TAG, "NotificationManager is null");
-            }
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        flags |= PendingIntent.FLAG_IMMUTABLE;
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error showing notification: " + e.getMessage());
-            e.printStackTrace();
-        }
+        return PendingIntent.getActivity(
+                ctx,
+                chatId.hashCode(),
+                chatIntent,
+                flags
+        );
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.WorkInfo;
 
 import android.Manifest;
 import android.content.Intent;
@@ -29,14 +30,21 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
-import com.cloudinary.android.MediaManager;
-import com.cloudinary.android.callback.ErrorInfo;
-import com.cloudinary.android.callback.UploadCallback;
 import com.example.messenger.R;
 import com.example.messenger.config.AppConfig;
 import com.example.messenger.databinding.ActivityChatBinding;
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.data.chats.ReadWatermark;
+import com.example.messenger.data.media.ImagePreprocessor;
+import com.example.messenger.data.media.UploadQueue;
+import com.example.messenger.data.media.UploadWorker;
+import com.example.messenger.data.messages.MessageSender;
+import com.example.messenger.data.messages.MessageStore;
+import com.example.messenger.data.messages.MessageStream;
 import com.example.messenger.data.models.Message;
+import com.example.messenger.notifications.MessageNotifier;
 import com.example.messenger.ui.adapters.MessagesAdapter;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
@@ -46,7 +54,6 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -59,12 +66,16 @@ public class ChatActivity extends AppCompatActivity {
     private String chatId;
     private String currentUserId;
     private String receiverId;
-    private ValueEventListener messagesListener;
-    private DatabaseReference messagesRef;
+    private MessageStream messageStream;
+    private ReadWatermark readWatermark;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean isMessagesSubmitScheduled = false;
+    private int pendingAppendedCount = 0;
     private MessagesAdapter messagesAdapter;
     private LinearLayoutManager layoutManager;
 
     private boolean isUploading = false;
+    private String shownUploadId;
     private String pendingFileName = "";
     private boolean isAtBottom = true;
     private int newMessagesCount = 0;
@@ -109,7 +120,8 @@ public class ChatActivity extends AppCompatActivity {
             return;
         }
 
-        initializeCloudinary();
+        readWatermark = new ReadWatermark(chatId, currentUserId, AppConfig.Messages.READ_RECEIPT_DEBOUNCE_MS);
+
         setupUI();
         setupChatMenu();
         findAndLoadReceiverData();
@@ -119,26 +131,16 @@ public class ChatActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        resetUnreadCount();
+        MessageNotifier.getInstance().setActiveChat(this, chatId);
         markMessagesAsRead();
     }
 
-    private void resetUnreadCount() {
-        if (chatId == null || currentUserId == null) return;
-
-        FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .child("unreadCount")
-                .child(currentUserId)
-                .setValue(0);
-    }
-
-    private void initializeCloudinary() {
-        try {
-            MediaManager.init(this, AppConfig.getCloudinaryConfig());
-        } catch (Exception e) {
-            e.printStackTrace();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        MessageNotifier.getInstance().setActiveChat(this, null);
+        if (readWatermark != null) {
+            readWatermark.flush();
         }
     }
 
@@ -235,16 +237,6 @@ public class ChatActivity extends AppCompatActivity {
             return;
         }
 
-        if (!AppConfig.isFileSizeValid(fileSize, mimeType)) {
-            String maxSize = AppConfig.formatFileSize(
-                    AppConfig.getMaxFileSizeForType(mimeType)
-            );
-            Toast.makeText(this,
-                    "The file over max size. Max size: " + maxSize,
-                    Toast.LENGTH_LONG).show();
-            return;
-        }
-
         String fileType = "document";
         if (mimeType != null) {
             if (mimeType.startsWith("image/")) {
@@ -254,6 +246,24 @@ public class ChatActivity extends AppCompatActivity {
             }
         }
 
+        // Photos are limited by the re-encoded size, since that is what gets uploaded.
+        if (ImagePreprocessor.shouldProcess(mimeType)) {
+            ImagePreprocessor.process(this, uri, fileName, result -> {
+                if (isFinishing() || isDestroyed()) return;
+
+                if (result != null) {
+                    if (!checkFileSize(result.fileSize, mimeType)) return;
+                    uploadFileToCloudinary(result.uri, result.fileName, result.fileSize, "image", 0);
+                } else {
+                    if (!checkFileSize(fileSize, mimeType)) return;
+                    uploadFileToCloudinary(uri, fileName, fileSize, "image", 0);
+                }
+            });
+            return;
+        }
+
+        if (!checkFileSize(fileSize, mimeType)) return;
+
         long videoDuration = 0;
         if (fileType.equals("video")) {
             videoDuration = getVideoDuration(uri);
@@ -262,6 +272,18 @@ public class ChatActivity extends AppCompatActivity {
         uploadFileToCloudinary(uri, fileName, fileSize, fileType, videoDuration);
     }
 
+    private boolean checkFileSize(long fileSize, String mimeType) {
+        if (AppConfig.isFileSizeValid(fileSize, mimeType)) return true;
+
+        String maxSize = AppConfig.formatFileSize(
+                AppConfig.getMaxFileSizeForType(mimeType)
+        );
+        Toast.makeText(this,
+                "The file over max size. Max size: " + maxSize,
+                Toast.LENGTH_LONG).show();
+        return false;
+    }
+
     private String getFileName(Uri uri) {
         String fileName = null;
         Cursor cursor = getContentResolver().query(uri, null, null, null, null);
@@ -295,80 +317,6 @@ public class ChatActivity extends AppCompatActivity {
             return;
         }
 
-        isUploading = true;
-        pendingFileName = fileName;
-
-        binding.uploadProgressContainer.setVisibility(View.VISIBLE);
-        binding.uploadFileNameTv.setText(fileName);
-        binding.uploadProgressBar.setProgress(0);
-        binding.uploadProgressTv.setText("Loading... 0%");
-
-        binding.attachFileBtn.setEnabled(false);
-        binding.sendMessageBtn.setEnabled(false);
-
-        String folder;
-        if (fileType.equals("image")) {
-            folder = AppConfig.CloudinaryFolders.IMAGES;
-        } else if (fileType.equals("video")) {
-            folder = AppConfig.CloudinaryFolders.VIDEOS;
-        } else {
-            folder = AppConfig.CloudinaryFolders.DOCUMENTS;
-        }
-
-        String publicId = "file_" + System.currentTimeMillis();
-
-        MediaManager.get().upload(fileUri)
-                .option("folder", folder)
-                .option("public_id", publicId)
-                .option("resource_type", "auto")
-                .callback(new UploadCallback() {
-                    @Override
-                    public void onStart(String requestId) {}
-
-                    @Override
-                    public void onProgress(String requestId, long bytes, long totalBytes) {
-                        int progress = (int) ((bytes * 100) / totalBytes);
-                        runOnUiThread(() -> {
-                            binding.uploadProgressBar.setProgress(progress);
-                            binding.uploadProgressTv.setText("Loading... " + progress + "%");
-                        });
-                    }
-
-                    @Override
-                    public void onSuccess(String requestId, Map resultData) {
-                        String fileUrl = (String) resultData.get("secure_url");
-
-                        runOnUiThread(() -> {
-                            binding.uploadProgressContainer.setVisibility(View.GONE);
-                            isUploading = false;
-                            binding.attachFileBtn.setEnabled(true);
-                            updateSendButtonState();
-
-                            sendMessageWithFile(fileUrl, fileName, fileSize, fileType, videoDuration);
-                        });
-                    }
-
-                    @Override
-                    public void onError(String requestId, ErrorInfo error) {
-                        runOnUiThread(() -> {
-                            binding.uploadProgressContainer.setVisibility(View.GONE);
-                            isUploading = false;
-                            binding.attachFileBtn.setEnabled(true);
-                            updateSendButtonState();
-
-                            Toast.makeText(ChatActivity.this,
-                                    "Download error: " + error.getDescription(),
-                                    Toast.LENGTH_SHORT).show();
-                        });
-                    }
-
-                    @Override
-                    public void onReschedule(String requestId, ErrorInfo error) {}
-                })
-                .dispatch();
-    }
-
-    private void sendMessageWithFile(String fileUrl, String fileName, long fileSize, String fileType, long videoDuration) {
         checkIfCanSendMessages(new OnCheckCompleteListener() {
             @Override
             public void onResult(boolean canSend, String errorMessage) {
@@ -377,17 +325,21 @@ public class ChatActivity extends AppCompatActivity {
                     return;
                 }
 
-                long now = System.currentTimeMillis();
-                SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault());
+                String folder;
+                if (fileType.equals("image")) {
+                    folder = AppConfig.CloudinaryFolders.IMAGES;
+                } else if (fileType.equals("video")) {
+                    folder = AppConfig.CloudinaryFolders.VIDEOS;
+                } else {
+                    folder = AppConfig.CloudinaryFolders.DOCUMENTS;
+                }
 
                 String text = binding.messageEt.getText().toString().trim();
 
+                // fileUrl, date and timestamp are added by UploadWorker once the upload is done.
                 HashMap<String, Object> msg = new HashMap<>();
                 msg.put("text", text.isEmpty() ? "" : text);
                 msg.put("ownerId", currentUserId);
-                msg.put("date", dateFormat.format(new Date()));
-                msg.put("timestamp", now);
-                msg.put("fileUrl", fileUrl);
                 msg.put("fileType", fileType);
                 msg.put("fileName", fileName);
                 msg.put("fileSize", fileSize);
@@ -396,57 +348,107 @@ public class ChatActivity extends AppCompatActivity {
                     msg.put("videoDuration", videoDuration);
                 }
 
-                DatabaseReference msgRef = FirebaseDatabase.getInstance()
-                        .getReference("Chats")
-                        .child(chatId)
-                        .child("messages")
-                        .push();
+                String preview;
+                if (fileType.equals("image")) {
+                    preview = "📷 Photo";
+                } else if (fileType.equals("video")) {
+                    preview = "🎥 Video";
+                } else {
+                    preview = "📄 " + fileName;
+                }
 
-                msgRef.setValue(msg)
-                        .addOnSuccessListener(aVoid -> {
-                            String preview;
-                            if (fileType.equals("image")) {
-                                preview = "📷 Photo";
-                            } else if (fileType.equals("video")) {
-                                preview = "🎥 Video";
-                            } else {
-                                preview = "📄 " + fileName;
-                            }
-                            updateLastMessage(preview, now);
-                            incrementUnreadCount();
-                            binding.messageEt.setText("");
-                            scrollToBottom();
-                            Toast.makeText(ChatActivity.this, "The file has been sent", Toast.LENGTH_SHORT).show();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(ChatActivity.this, "Sending error", Toast.LENGTH_SHORT).show();
-                        });
+                pendingFileName = fileName;
+                showUploadProgress(fileName);
+                binding.messageEt.setText("");
+
+                UploadQueue.getInstance(ChatActivity.this).enqueue(fileUri, chatId, currentUserId, receiverId,
+                        folder, "file_" + System.currentTimeMillis(), msg, preview,
+                        uploadId -> onUploadQueued(uploadId, "The file has been sent"));
             }
         });
     }
 
-    private void updateSendButtonState() {
-        boolean hasText = !binding.messageEt.getText().toString().trim().isEmpty();
-        binding.sendMessageBtn.setEnabled(hasText && !isUploading);
-        binding.sendMessageBtn.setAlpha((hasText && !isUploading) ? 1.0f : 0.5f);
+    // Controls stay disabled only while the picked file is copied into the queue.
+    private void showUploadProgress(String title) {
+        isUploading = true;
+        shownUploadId = null;
+        binding.uploadProgressContainer.setVisibility(View.VISIBLE);
+        binding.uploadFileNameTv.setText(title);
+        binding.uploadProgressBar.setProgress(0);
+        binding.uploadProgressTv.setText("Preparing...");
+
+        binding.attachFileBtn.setEnabled(false);
+        binding.voiceRecordBtn.setEnabled(false);
+        updateSendButtonState();
     }
 
-    private void incrementUnreadCount() {
-        if (receiverId == null) return;
+    private void releaseUploadControls() {
+        isUploading = false;
+        binding.attachFileBtn.setEnabled(true);
+        binding.voiceRecordBtn.setEnabled(true);
+        updateSendButtonState();
+    }
 
-        DatabaseReference unreadRef = FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .child("unreadCount")
-                .child(receiverId);
+    private void hideUploadProgress() {
+        binding.uploadProgressContainer.setVisibility(View.GONE);
+        shownUploadId = null;
+        releaseUploadControls();
+    }
+
+    // The upload itself belongs to UploadQueue; the activity only mirrors its progress while open.
+    // The bar follows the most recent upload; earlier ones still report how they ended.
+    private void onUploadQueued(String uploadId, String successMessage) {
+        if (binding == null) return;
 
-        unreadRef.get().addOnSuccessListener(snapshot -> {
-            Long currentCount = snapshot.getValue(Long.class);
-            int newCount = (currentCount != null ? currentCount.intValue() : 0) + 1;
-            unreadRef.setValue(newCount);
+        if (uploadId == null) {
+            hideUploadProgress();
+            Toast.makeText(this, "Sending error", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        shownUploadId = uploadId;
+        binding.uploadProgressTv.setText("Waiting to send...");
+        releaseUploadControls();
+
+        UploadQueue.observe(this, uploadId).observe(this, workInfos -> {
+            if (binding == null || workInfos == null || workInfos.isEmpty()) return;
+
+            WorkInfo info = workInfos.get(0);
+            boolean isShown = uploadId.equals(shownUploadId);
+            switch (info.getState()) {
+                case ENQUEUED:
+                case BLOCKED:
+                    // Offline or backing off before a retry.
+                    if (isShown) binding.uploadProgressTv.setText("Waiting to send...");
+                    break;
+                case RUNNING:
+                    if (!isShown) break;
+                    int progress = info.getProgress().getInt(UploadWorker.KEY_PROGRESS, 0);
+                    binding.uploadProgressBar.setProgress(progress);
+                    binding.uploadProgressTv.setText("Loading... " + progress + "%");
+                    break;
+                case SUCCEEDED:
+                    if (isShown) hideUploadProgress();
+                    scrollToBottom();
+                    Toast.makeText(this, successMessage, Toast.LENGTH_SHORT).show();
+                    break;
+                case FAILED:
+                case CANCELLED:
+                    if (isShown) hideUploadProgress();
+                    Toast.makeText(this, "Download error", Toast.LENGTH_SHORT).show();
+                    break;
+                default:
+                    break;
+            }
         });
     }
 
+    private void updateSendButtonState() {
+        boolean hasText = !binding.messageEt.getText().toString().trim().isEmpty();
+        binding.sendMessageBtn.setEnabled(hasText && !isUploading);
+        binding.sendMessageBtn.setAlpha((hasText && !isUploading) ? 1.0f : 0.5f);
+    }
+
     private void scrollToBottom() {
         if (messagesAdapter != null && messagesAdapter.getItemCount() > 0) {
             binding.messagesRv.smoothScrollToPosition(messagesAdapter.getItemCount() - 1);
@@ -462,6 +464,11 @@ public class ChatActivity extends AppCompatActivity {
                 super.onScrolled(recyclerView, dx, dy);
 
                 if (layoutManager != null) {
+                    if (dy < 0 && layoutManager.findFirstVisibleItemPosition()
+                            <= AppConfig.Messages.LOAD_MORE_THRESHOLD) {
+                        messageStream.loadOlder();
+                    }
+
                     int lastVisiblePosition = layoutManager.findLastVisibleItemPosition();
                     int totalItemCount = layoutManager.getItemCount();
 
@@ -478,54 +485,41 @@ public class ChatActivity extends AppCompatActivity {
         });
     }
 
-    private void updateLastMessage(String text, long timestamp) {
-        String preview = text.length() > 50 ? text.substring(0, 47) + "..." : text;
-
-        HashMap<String, Object> update = new HashMap<>();
-        update.put("lastMessageTime", timestamp);
-        update.put("lastMessagePreview", preview);
-
-        FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .updateChildren(update);
-    }
-
     private void findAndLoadReceiverData() {
         DatabaseReference chatRef = FirebaseDatabase.getInstance()
                 .getReference("Chats")
                 .child(chatId);
 
-        chatRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists()) {
-                    binding.chatUsernameTv.setText("The chat was not found");
-                    return;
-                }
+        // Only the two participant fields: reading the chat node itself would pull its whole history.
+        Tasks.whenAllSuccess(chatRef.child("user1").get(), chatRef.child("user2").get())
+                .addOnSuccessListener(this, results -> {
+                    String user1 = ((DataSnapshot) results.get(0)).getValue(String.class);
+                    String user2 = ((DataSnapshot) results.get(1)).getValue(String.class);
 
-                String user1 = snapshot.child("user1").getValue(String.class);
-                String user2 = snapshot.child("user2").getValue(String.class);
-
-                if (currentUserId.equals(user1)) {
-                    receiverId = user2;
-                } else if (currentUserId.equals(user2)) {
-                    receiverId = user1;
-                }
+                    if (user1 == null && user2 == null) {
+                        binding.chatUsernameTv.setText("The chat was not found");
+                        return;
+                    }
 
-                if (receiverId == null) {
-                    binding.chatUsernameTv.setText("Unknown");
-                    return;
-                }
+                    if (currentUserId.equals(user1)) {
+                        receiverId = user2;
+                    } else if (currentUserId.equals(user2)) {
+                        receiverId = user1;
+                    }
 
-                loadReceiverData(receiverId);
-            }
+                    if (receiverId == null) {
+                        binding.chatUsernameTv.setText("Unknown");
+                        return;
+                    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                binding.chatUsernameTv.setText("Error");
-            }
-        });
+                    loadReceiverData(receiverId);
+                    readWatermark.observePeer(receiverId, messageKey -> {
+                        if (messagesAdapter != null) {
+                            messagesAdapter.setPeerLastReadKey(messageKey);
+                        }
+                    });
+                })
+                .addOnFailureListener(this, e -> binding.chatUsernameTv.setText("Error"));
     }
 
     private void loadReceiverData(String uid) {
@@ -607,138 +601,126 @@ public class ChatActivity extends AppCompatActivity {
     }
 
     private void loadMessages() {
-        messagesRef = FirebaseDatabase.getInstance()
+        DatabaseReference messagesRef = FirebaseDatabase.getInstance()
                 .getReference("Chats")
                 .child(chatId)
                 .child("messages");
 
-        messagesListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<Message> messages = new ArrayList<>();
-
-                for (DataSnapshot msgSnapshot : snapshot.getChildren()) {
-                    String id = msgSnapshot.getKey();
-                    String ownerId = msgSnapshot.child("ownerId").getValue(String.class);
-                    String text = msgSnapshot.child("text").getValue(String.class);
-                    String date = msgSnapshot.child("date").getValue(String.class);
-                    Long timestamp = msgSnapshot.child("timestamp").getValue(Long.class);
-
-                    String fileUrl = msgSnapshot.child("fileUrl").getValue(String.class);
-                    String fileType = msgSnapshot.child("fileType").getValue(String.class);
-                    String fileName = msgSnapshot.child("fileName").getValue(String.class);
-                    Long fileSize = msgSnapshot.child("fileSize").getValue(Long.class);
-                    Long voiceDuration = msgSnapshot.child("voiceDuration").getValue(Long.class);
-                    Long videoDuration = msgSnapshot.child("videoDuration").getValue(Long.class);
-
-                    Boolean isForwarded = msgSnapshot.child("isForwarded").getValue(Boolean.class);
-                    String forwardedFrom = msgSnapshot.child("forwardedFrom").getValue(String.class);
-                    Boolean isEdited = msgSnapshot.child("isEdited").getValue(Boolean.class);
-
-                    String replyToMessageId = msgSnapshot.child("replyToMessageId").getValue(String.class);
-                    String replyToText = msgSnapshot.child("replyToText").getValue(String.class);
-                    String replyToOwnerName = msgSnapshot.child("replyToOwnerName").getValue(String.class);
-                    String replyToFileType = msgSnapshot.child("replyToFileType").getValue(String.class);
-
-                    Boolean read = msgSnapshot.child("read").getValue(Boolean.class);
-
-                    String contactUserId = msgSnapshot.child("contactUserId").getValue(String.class);
-                    String contactUsername = msgSnapshot.child("contactUsername").getValue(String.class);
-
-                    if (ownerId != null) {
-                        Message message = new Message(
-                                id,
-                                ownerId,
-                                text != null ? text : "",
-                                date != null ? date : "",
-                                timestamp != null ? timestamp : 0L,
-                                fileUrl,
-                                fileType,
-                                fileName,
-                                fileSize != null ? fileSize : 0L,
-                                voiceDuration != null ? voiceDuration : 0L,
-                                videoDuration != null ? videoDuration : 0L
-                        );
-
-                        if (isForwarded != null && isForwarded) {
-                            message.setForwarded(true);
-                            if (forwardedFrom != null) {
-                                message.setForwardedFrom(forwardedFrom);
-                            }
-                        }
+        MessageStore store = MessageStore.getInstance(this);
 
-                        message.setEdited(isEdited != null && isEdited);
-
-                        if (replyToMessageId != null && !replyToMessageId.isEmpty()) {
-                            message.setReplyToMessageId(replyToMessageId);
-                            message.setReplyToText(replyToText);
-                            message.setReplyToOwnerName(replyToOwnerName);
-                            message.setReplyToFileType(replyToFileType);
-                        }
+        messageStream = new MessageStream(chatId, messagesRef, store, AppConfig.Messages.PAGE_SIZE, new MessageStream.Listener() {
+            @Override
+            public void onInitialPageLoaded() {
+                scheduleMessagesSubmit();
+            }
 
-                        message.setRead(read != null && read);
+            @Override
+            public void onOlderMessagesLoaded(int count) {
+                if (binding == null) return;
 
-                        if (contactUserId != null && !contactUserId.isEmpty()) {
-                            message.setContactUserId(contactUserId);
-                            message.setContactUsername(contactUsername);
-                        }
+                int firstVisible = layoutManager.findFirstVisibleItemPosition();
+                View firstView = layoutManager.findViewByPosition(firstVisible);
+                int offset = firstView != null ? firstView.getTop() : 0;
 
-                        messages.add(message);
+                messagesAdapter.updateMessages(messageStream.getMessages(), () -> {
+                    if (binding != null) {
+                        layoutManager.scrollToPositionWithOffset(firstVisible + count, offset);
                     }
+                });
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+                if (position + count == messageStream.getMessages().size()) {
+                    pendingAppendedCount += count;
                 }
+                scheduleMessagesSubmit();
+            }
 
-                setupRecyclerView(messages);
+            @Override
+            public void onRemoved(int position, int count) {
+                scheduleMessagesSubmit();
+            }
 
-                markMessagesAsRead();
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                scheduleMessagesSubmit();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onChanged(int position, int count, Object payload) {
+                scheduleMessagesSubmit();
+            }
+
+            @Override
+            public void onError(@NonNull DatabaseError error) {
                 Toast.makeText(ChatActivity.this, "Error loading messages", Toast.LENGTH_SHORT).show();
             }
-        };
+        });
 
-        messagesRef.addValueEventListener(messagesListener);
+        setupRecyclerView(messageStream.getMessages());
+        messageStream.start();
     }
 
     private void setupRecyclerView(List<Message> messages) {
-        if (layoutManager == null) {
-            layoutManager = new LinearLayoutManager(this);
-            layoutManager.setStackFromEnd(true);
-            binding.messagesRv.setLayoutManager(layoutManager);
-        }
+        layoutManager = new LinearLayoutManager(this);
+        layoutManager.setStackFromEnd(true);
+        binding.messagesRv.setLayoutManager(layoutManager);
 
+        messagesAdapter = new MessagesAdapter(messages, chatId);
+        binding.messagesRv.setAdapter(messagesAdapter);
+    }
+
+    // All child events of one Firebase batch are folded into a single background diff.
+    private void scheduleMessagesSubmit() {
+        if (isMessagesSubmitScheduled) return;
+        isMessagesSubmitScheduled = true;
+        mainHandler.post(this::submitMessages);
+    }
+
+    private void submitMessages() {
+        isMessagesSubmitScheduled = false;
+        if (binding == null) return;
+
+        int appended = pendingAppendedCount;
+        pendingAppendedCount = 0;
         boolean wasAtBottom = isAtBottom;
-        int previousItemCount = messagesAdapter != null ? messagesAdapter.getItemCount() : 0;
+        boolean wasEmpty = messagesAdapter.getItemCount() == 0;
 
-        if (messagesAdapter == null) {
-            messagesAdapter = new MessagesAdapter(messages, chatId);
-            binding.messagesRv.setAdapter(messagesAdapter);
-        } else {
-            messagesAdapter.updateMessages(messages);
-        }
+        messagesAdapter.updateMessages(messageStream.getMessages(), () -> {
+            if (binding == null || appended == 0) return;
 
-        if (messagesAdapter.getItemCount() > 0) {
-            if (wasAtBottom || previousItemCount == 0) {
-                binding.messagesRv.post(() ->
-                        binding.messagesRv.smoothScrollToPosition(messagesAdapter.getItemCount() - 1)
-                );
+            int lastPosition = messagesAdapter.getItemCount() - 1;
+            if (lastPosition < 0) return;
+
+            if (wasEmpty) {
+                binding.messagesRv.scrollToPosition(lastPosition);
+            } else if (wasAtBottom) {
+                binding.messagesRv.smoothScrollToPosition(lastPosition);
             } else {
-                int newCount = messagesAdapter.getItemCount() - previousItemCount;
-                if (newCount > 0) {
-                    newMessagesCount += newCount;
-                    binding.scrollToBottomFab.setVisibility(View.VISIBLE);
-                }
+                newMessagesCount += appended;
+                binding.scrollToBottomFab.setVisibility(View.VISIBLE);
             }
-        }
+
+            Message last = messagesAdapter.getMessages().get(lastPosition);
+            if (!currentUserId.equals(last.getOwnerId())) {
+                markMessagesAsRead();
+            }
+        });
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
 
-        if (messagesRef != null && messagesListener != null) {
-            messagesRef.removeEventListener(messagesListener);
+        if (messageStream != null) {
+            messageStream.stop();
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+
+        if (readWatermark != null) {
+            readWatermark.flush();
+            readWatermark.stopObservingPeer();
         }
 
         if (receiverId != null && userStatusListener != null) {
@@ -844,117 +826,38 @@ public class ChatActivity extends AppCompatActivity {
 
         long duration = System.currentTimeMillis() - recordingStartTime;
 
-        uploadVoiceToCloudinary(Uri.fromFile(new java.io.File(voiceFilePath)), duration);
+        Uri voiceUri = Uri.fromFile(new java.io.File(voiceFilePath));
+        voiceFilePath = null;
+        uploadVoiceToCloudinary(voiceUri, duration);
     }
 
     private void uploadVoiceToCloudinary(Uri voiceUri, long duration) {
-        binding.uploadProgressContainer.setVisibility(View.VISIBLE);
-        binding.uploadFileNameTv.setText("Voice message");
-        binding.uploadProgressBar.setProgress(0);
-        binding.uploadProgressTv.setText("Loading... 0%");
-
-        binding.attachFileBtn.setEnabled(false);
-        binding.voiceRecordBtn.setEnabled(false);
-
-        String publicId = "voice_" + System.currentTimeMillis();
-
-        MediaManager.get().upload(voiceUri)
-                .option("folder", AppConfig.CloudinaryFolders.VOICES)
-                .option("public_id", publicId)
-                .option("resource_type", "auto")
-                .callback(new UploadCallback() {
-                    @Override
-                    public void onStart(String requestId) {}
-
-                    @Override
-                    public void onProgress(String requestId, long bytes, long totalBytes) {
-                        int progress = (int) ((bytes * 100) / totalBytes);
-                        runOnUiThread(() -> {
-                            binding.uploadProgressBar.setProgress(progress);
-                            binding.uploadProgressTv.setText("Loading... " + progress + "%");
-                        });
-                    }
-
-                    @Override
-                    public void onSuccess(String requestId, Map resultData) {
-                        String fileUrl = (String) resultData.get("secure_url");
-
-                        runOnUiThread(() -> {
-                            binding.uploadProgressContainer.setVisibility(View.GONE);
-                            binding.attachFileBtn.setEnabled(true);
-                            binding.voiceRecordBtn.setEnabled(true);
-
-                            sendVoiceMessageToFirebase(fileUrl, duration);
-
-                            if (voiceFilePath != null) {
-                                new java.io.File(voiceFilePath).delete();
-                                voiceFilePath = null;
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onError(String requestId, ErrorInfo error) {
-                        runOnUiThread(() -> {
-                            binding.uploadProgressContainer.setVisibility(View.GONE);
-                            binding.attachFileBtn.setEnabled(true);
-                            binding.voiceRecordBtn.setEnabled(true);
-
-                            Toast.makeText(ChatActivity.this,
-                                    "Download error: " + error.getDescription(),
-                                    Toast.LENGTH_SHORT).show();
-
-                            if (voiceFilePath != null) {
-                                new java.io.File(voiceFilePath).delete();
-                                voiceFilePath = null;
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onReschedule(String requestId, ErrorInfo error) {}
-                })
-                .dispatch();
-    }
-
-    private void sendVoiceMessageToFirebase(String voiceUrl, long duration) {
         checkIfCanSendMessages(new OnCheckCompleteListener() {
             @Override
             public void onResult(boolean canSend, String errorMessage) {
                 if (!canSend) {
                     Toast.makeText(ChatActivity.this, errorMessage, Toast.LENGTH_LONG).show();
+                    new java.io.File(voiceUri.getPath()).delete();
                     return;
                 }
 
-                long now = System.currentTimeMillis();
-                SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault());
-
                 HashMap<String, Object> msg = new HashMap<>();
                 msg.put("text", "");
                 msg.put("ownerId", currentUserId);
-                msg.put("date", dateFormat.format(new Date()));
-                msg.put("timestamp", now);
-                msg.put("fileUrl", voiceUrl);
                 msg.put("fileType", "voice");
                 msg.put("fileName", "voice.m4a");
                 msg.put("fileSize", 0L);
                 msg.put("voiceDuration", duration);
 
-                DatabaseReference msgRef = FirebaseDatabase.getInstance()
-                        .getReference("Chats")
-                        .child(chatId)
-                        .child("messages")
-                        .push();
+                showUploadProgress("Voice message");
 
-                msgRef.setValue(msg)
-                        .addOnSuccessListener(aVoid -> {
-                            updateLastMessage("🎤 Voice message", now);
-                            incrementUnreadCount();
-                            scrollToBottom();
-                            Toast.makeText(ChatActivity.this, "The voice message has been sent", Toast.LENGTH_SHORT).show();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(ChatActivity.this, "Sending error", Toast.LENGTH_SHORT).show();
+                UploadQueue.getInstance(ChatActivity.this).enqueue(voiceUri, chatId, currentUserId, receiverId,
+                        AppConfig.CloudinaryFolders.VOICES, "voice_" + System.currentTimeMillis(),
+                        msg, "🎤 Voice message",
+                        uploadId -> {
+                            // The queue keeps its own copy of the recording.
+                            new java.io.File(voiceUri.getPath()).delete();
+                            onUploadQueued(uploadId, "The voice message has been sent");
                         });
             }
         });
@@ -1054,16 +957,8 @@ public class ChatActivity extends AppCompatActivity {
                     }
                 }
 
-                DatabaseReference msgRef = FirebaseDatabase.getInstance()
-                        .getReference("Chats")
-                        .child(chatId)
-                        .child("messages")
-                        .push();
-
-                msgRef.setValue(msg)
+                MessageSender.send(chatId, currentUserId, receiverId, msg, text)
                         .addOnSuccessListener(aVoid -> {
-                            updateLastMessage(text, now);
-                            incrementUnreadCount();
                             binding.messageEt.setText("");
                             updateSendButtonState();
                             cancelReply();
@@ -1087,30 +982,10 @@ public class ChatActivity extends AppCompatActivity {
         isAtBottom = true;
     }
     private void markMessagesAsRead() {
-        if (chatId == null || currentUserId == null) return;
+        if (readWatermark == null || messageStream == null) return;
 
-        DatabaseReference messagesRef = FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .child("messages");
-
-        messagesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                for (DataSnapshot msgSnapshot : snapshot.getChildren()) {
-                    String ownerId = msgSnapshot.child("ownerId").getValue(String.class);
-                    Boolean isRead = msgSnapshot.child("read").getValue(Boolean.class);
-
-                    if (ownerId != null && !ownerId.equals(currentUserId)
-                            && (isRead == null || !isRead)) {
-                        msgSnapshot.getRef().child("read").setValue(true);
-                    }
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {}
-        });
+        List<Message> messages = messageStream.getMessages();
+        readWatermark.markRead(messages.isEmpty() ? null : messages.get(messages.size() - 1).getId());
     }
 
     private void showChatSettingsSheet() {
@@ -1182,12 +1057,12 @@ public class ChatActivity extends AppCompatActivity {
     private void toggleChatNotifications(boolean enabled) {
         if (chatId == null || currentUserId == null) return;
 
+        Map<String, Object> updates = new HashMap<>();
+        InboxIndex.putMuted(updates, chatId, currentUserId, !enabled);
+
         FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .child("mutedBy")
-                .child(currentUserId)
-                .setValue(!enabled)
+                .getReference()
+                .updateChildren(updates)
                 .addOnFailureListener(e -> {
                     Toast.makeText(this, "Error changing settings", Toast.LENGTH_SHORT).show();
                 });
@@ -1202,21 +1077,16 @@ public class ChatActivity extends AppCompatActivity {
                 .child(chatId)
                 .child("mutedBy")
                 .child(currentUserId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Boolean isMuted = snapshot.getValue(Boolean.class);
-                        boolean notificationsEnabled = isMuted == null || !isMuted;
-
-                        switchCompat.setChecked(notificationsEnabled);
-                        subtitle.setText(notificationsEnabled ? "Enabled" : "Disabled");
-                        icon.setImageResource(
-                                notificationsEnabled ? R.drawable.ic_notifications : R.drawable.ic_notifications_off
-                        );
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {}
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Boolean isMuted = snapshot.getValue(Boolean.class);
+                    boolean notificationsEnabled = isMuted == null || !isMuted;
+
+                    switchCompat.setChecked(notificationsEnabled);
+                    subtitle.setText(notificationsEnabled ? "Enabled" : "Disabled");
+                    icon.setImageResource(
+                            notificationsEnabled ? R.drawable.ic_notifications : R.drawable.ic_notifications_off
+                    );
                 });
     }
 
@@ -1243,16 +1113,8 @@ public class ChatActivity extends AppCompatActivity {
         msg.put("contactUsername", contactUsername);
         msg.put("read", false);
 
-        DatabaseReference msgRef = FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .child("messages")
-                .push();
-
-        msgRef.setValue(msg)
+        MessageSender.send(chatId, currentUserId, receiverId, msg, "👤 Contact: " + contactUsername)
                 .addOnSuccessListener(aVoid -> {
-                    updateLastMessage("👤 Contact: " + contactUsername, now);
-                    incrementUnreadCount();
                     scrollToBottom();
                     Toast.makeText(this, "The contact has been sent", Toast.LENGTH_SHORT).show();
                 })
@@ -1315,23 +1177,18 @@ public class ChatActivity extends AppCompatActivity {
                 .getReference("Chats")
                 .child(chatId);
 
+        // get() asks the server first; a single-value listener would be answered from the disk cache.
         chatRef.child("blockedUsers").child(currentUserId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Boolean isBlocked = snapshot.getValue(Boolean.class);
-                        if (isBlocked != null && isBlocked) {
-                            listener.onResult(false, "You cannot send messages to this user");
-                        } else {
-                            listener.onResult(true, null);
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Boolean isBlocked = snapshot.getValue(Boolean.class);
+                    if (isBlocked != null && isBlocked) {
+                        listener.onResult(false, "You cannot send messages to this user");
+                    } else {
                         listener.onResult(true, null);
                     }
-                });
+                })
+                .addOnFailureListener(e -> listener.onResult(true, null));
     }
 
     private void toggleBlockUser() {
@@ -1343,33 +1200,29 @@ public class ChatActivity extends AppCompatActivity {
                 .child("blockedUsers")
                 .child(receiverId);
 
-        blockRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Boolean isBlocked = snapshot.getValue(Boolean.class);
-                boolean currentlyBlocked = isBlocked != null && isBlocked;
-
-                blockRef.setValue(!currentlyBlocked)
-                        .addOnSuccessListener(aVoid -> {
-                            String message = currentlyBlocked ?
-                                    "The user is unblocked" :
-                                    "The user is blocked";
-                            Toast.makeText(ChatActivity.this, message, Toast.LENGTH_SHORT).show();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(ChatActivity.this,
-                                    "Status change error",
-                                    Toast.LENGTH_SHORT).show();
-                        });
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(ChatActivity.this,
-                        "Data upload error",
-                        Toast.LENGTH_SHORT).show();
-            }
-        });
+        blockRef.get()
+                .addOnSuccessListener(snapshot -> {
+                    Boolean isBlocked = snapshot.getValue(Boolean.class);
+                    boolean currentlyBlocked = isBlocked != null && isBlocked;
+
+                    blockRef.setValue(!currentlyBlocked)
+                            .addOnSuccessListener(aVoid -> {
+                                String message = currentlyBlocked ?
+                                        "The user is unblocked" :
+                                        "The user is blocked";
+                                Toast.makeText(ChatActivity.this, message, Toast.LENGTH_SHORT).show();
+                            })
+                            .addOnFailureListener(e -> {
+                                Toast.makeText(ChatActivity.this,
+                                        "Status change error",
+                                        Toast.LENGTH_SHORT).show();
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Toast.makeText(ChatActivity.this,
+                            "Data upload error",
+                            Toast.LENGTH_SHORT).show();
+                });
     }
 
     private void loadBlockStatus(OnBlockStatusLoadedListener listener) {
@@ -1383,18 +1236,12 @@ public class ChatActivity extends AppCompatActivity {
                 .child(chatId)
                 .child("blockedUsers")
                 .child(receiverId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Boolean isBlocked = snapshot.getValue(Boolean.class);
-                        listener.onLoaded(isBlocked != null && isBlocked);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        listener.onLoaded(false);
-                    }
-                });
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Boolean isBlocked = snapshot.getValue(Boolean.class);
+                    listener.onLoaded(isBlocked != null && isBlocked);
+                })
+                .addOnFailureListener(e -> listener.onLoaded(false));
     }
 
     interface OnCheckCompleteListener {
@@ -1449,15 +1296,14 @@ public class ChatActivity extends AppCompatActivity {
             return;
         }
 
-        String preview = newText.length() > 50 ? newText.substring(0, 47) + "..." : newText;
+        String preview = MessageSender.truncatePreview(newText);
 
-        Map<String, Object> update = new HashMap<>();
-        update.put("lastMessagePreview", preview);
+        Map<String, Object> updates = new HashMap<>();
+        InboxIndex.putPreview(updates, chatId, currentUserId, receiverId, preview);
 
         FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .updateChildren(update);
+                .getReference()
+                .updateChildren(updates);
     }
 
     private String getFilePreview(Message message) {
@@ -1,7 +1,6 @@
 package com.example.messenger.ui.activities;
 
 import android.content.Intent;
-import android.os.Build;
 import android.os.Bundle;
 
 import androidx.annotation.NonNull;
@@ -9,11 +8,14 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 
 import com.example.messenger.R;
+import com.example.messenger.data.chats.ChatPartners;
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.data.sync.SyncMode;
+import com.example.messenger.data.users.UserDirectory;
 import com.example.messenger.ui.fragments.chats.ChatsFragment;
 import com.example.messenger.ui.fragments.new_chat.NewChatFragment;
 import com.example.messenger.ui.fragments.profile.ProfileFragment;
 import com.example.messenger.databinding.ActivityMainBinding;
-import com.example.messenger.services.MessageListenerService;
 import com.google.android.material.badge.BadgeDrawable;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
@@ -41,11 +43,7 @@ public class MainActivity extends AppCompatActivity {
 
         myUid = FirebaseAuth.getInstance().getCurrentUser().getUid();
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            startForegroundService(new Intent(this, MessageListenerService.class));
-        } else {
-            startService(new Intent(this, MessageListenerService.class));
-        }
+        SyncMode.apply(this);
 
         setUserOnlineStatus(true);
 
@@ -65,6 +63,9 @@ public class MainActivity extends AppCompatActivity {
             return loadFragment(fragment);
         });
 
+        InboxIndex.backfillIfNeeded(this, myUid);
+        ChatPartners.backfillIfNeeded(this, myUid);
+        UserDirectory.publishIfNeeded(this, myUid);
         setupUnreadChatsBadge();
     }
 
@@ -79,18 +80,11 @@ public class MainActivity extends AppCompatActivity {
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 int unreadChatsCount = 0;
 
-                for (DataSnapshot chatSnap : snapshot.getChildren()) {
-                    String user1 = chatSnap.child("user1").getValue(String.class);
-                    String user2 = chatSnap.child("user2").getValue(String.class);
-
-                    if (myUid.equals(user1) || myUid.equals(user2)) {
-                        Long unreadCount = chatSnap.child("unreadCount")
-                                .child(myUid)
-                                .getValue(Long.class);
+                for (DataSnapshot rowSnap : snapshot.getChildren()) {
+                    Long unreadCount = rowSnap.child("unreadCount").getValue(Long.class);
 
-                        if (unreadCount != null && unreadCount > 0) {
-                            unreadChatsCount++;
-                        }
+                    if (unreadCount != null && unreadCount > 0) {
+                        unreadChatsCount++;
                     }
                 }
 
@@ -107,9 +101,7 @@ public class MainActivity extends AppCompatActivity {
             }
         };
 
-        FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .addValueEventListener(unreadChatsListener);
+        InboxIndex.inboxRef(myUid).addValueEventListener(unreadChatsListener);
     }
 
     private boolean loadFragment(Fragment fragment) {
@@ -158,10 +150,8 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
 
-        if (unreadChatsListener != null) {
-            FirebaseDatabase.getInstance()
-                    .getReference("Chats")
-                    .removeEventListener(unreadChatsListener);
+        if (unreadChatsListener != null && myUid != null) {
+            InboxIndex.inboxRef(myUid).removeEventListener(unreadChatsListener);
         }
 
         setUserOnlineStatus(false);
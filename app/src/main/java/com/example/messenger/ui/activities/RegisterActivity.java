@@ -17,18 +17,17 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.example.messenger.R;
 import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.users.UserDirectory;
 import com.example.messenger.databinding.ActivityRegisterBinding;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.Query;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class RegisterActivity extends AppCompatActivity {
@@ -143,23 +142,19 @@ public class RegisterActivity extends AppCompatActivity {
                 .getReference("Users")
                 .orderByChild("username")
                 .equalTo(username);
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot.exists()) {
+                        showLoader(false);
+                        Toast.makeText(RegisterActivity.this, "This username is already occupied.", Toast.LENGTH_SHORT).show();
+                    } else {
+                        createFirebaseAccount(username, email, password);
+                    }
+                })
+                .addOnFailureListener(e -> {
                     showLoader(false);
-                    Toast.makeText(RegisterActivity.this, "This username is already occupied.", Toast.LENGTH_SHORT).show();
-                } else {
-                    createFirebaseAccount(username, email, password);
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                showLoader(false);
-                Toast.makeText(RegisterActivity.this, "Verification error. Try again later", Toast.LENGTH_SHORT).show();
-            }
-        });
+                    Toast.makeText(RegisterActivity.this, "Verification error. Try again later", Toast.LENGTH_SHORT).show();
+                });
     }
 
     private void createFirebaseAccount(String username, String email, String password) {
@@ -215,10 +210,13 @@ public class RegisterActivity extends AppCompatActivity {
         userInfo.put("lastSeen", 0L);
         userInfo.put("emailVerified", false);
 
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("Users/" + uid, userInfo);
+        UserDirectory.putEntry(updates, uid, username, null);
+
         FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(uid)
-                .setValue(userInfo)
+                .getReference()
+                .updateChildren(updates)
                 .addOnSuccessListener(unused -> {
                     showLoader(false);
                     Toast.makeText(this, "✅ Registration is successful!\n📧 The email has been sent. U can check the spam", Toast.LENGTH_LONG).show();
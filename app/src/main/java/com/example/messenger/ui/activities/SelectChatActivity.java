@@ -13,13 +13,19 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.messenger.R;
 import com.example.messenger.ui.adapters.SelectChatAdapter;
-import com.example.messenger.data.models.Chat;
+import com.example.messenger.ui.fragments.chats.ChatSearch;
+import com.example.messenger.data.chats.ChatList;
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.data.messages.MessageSender;
+import com.example.messenger.data.models.ChatListItem;
+import com.example.messenger.data.models.InboxEntry;
+import com.example.messenger.data.models.InboxEntryCodec;
+import com.example.messenger.data.users.UserProfileCache;
 import com.example.messenger.databinding.ActivitySelectChatBinding;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.text.SimpleDateFormat;
@@ -28,7 +34,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public class SelectChatActivity extends AppCompatActivity {
 
@@ -43,11 +48,14 @@ public class SelectChatActivity extends AppCompatActivity {
     private String fileName;
     private long fileSize;
     private long voiceDuration;
+    private long videoDuration;
+    private String thumbnailUrl;
     private boolean hasFile = false;
 
-    private List<Map<String, Object>> allChats = new ArrayList<>();
-    private List<Map<String, Object>> filteredChats = new ArrayList<>();
+    private final ChatList allChats = new ChatList();
+    private final ChatList filteredChats = new ChatList();
     private SelectChatAdapter adapter;
+    private ChatSearch chatSearch;
     private ValueEventListener chatsListener;
     private DatabaseReference chatsRef;
     private boolean isForwarding = false;
@@ -72,6 +80,8 @@ public class SelectChatActivity extends AppCompatActivity {
         fileName = getIntent().getStringExtra("fileName");
         fileSize = getIntent().getLongExtra("fileSize", 0);
         voiceDuration = getIntent().getLongExtra("voiceDuration", 0);
+        videoDuration = getIntent().getLongExtra("videoDuration", 0);
+        thumbnailUrl = getIntent().getStringExtra("thumbnailUrl");
         hasFile = fileUrl != null && !fileUrl.isEmpty();
 
         shareContactUserId = getIntent().getStringExtra("shareContactUserId");
@@ -116,24 +126,12 @@ public class SelectChatActivity extends AppCompatActivity {
     }
 
     private void loadCurrentUsername() {
-        FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(currentUserId)
-                .child("username")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        currentUsername = snapshot.getValue(String.class);
-                        if (currentUsername == null) {
-                            currentUsername = "Unknown";
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        currentUsername = "Unknown";
-                    }
-                });
+        UserProfileCache.getInstance().request(currentUserId, profile -> {
+            currentUsername = profile != null ? profile.username : null;
+            if (currentUsername == null) {
+                currentUsername = "Unknown";
+            }
+        });
     }
 
     @SuppressLint("ClickableViewAccessibility")
@@ -147,7 +145,7 @@ public class SelectChatActivity extends AppCompatActivity {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 updateClearIcon(s.length() > 0);
-                filterChats(s.toString());
+                chatSearch.setQuery(s.toString());
             }
 
             @Override
@@ -190,24 +188,6 @@ public class SelectChatActivity extends AppCompatActivity {
         return touchX >= clearIconStart;
     }
 
-    private void filterChats(String query) {
-        String searchQuery = query.toLowerCase(Locale.ROOT).trim();
-        filteredChats.clear();
-
-        if (searchQuery.isEmpty()) {
-            filteredChats.addAll(allChats);
-        } else {
-            for (Map<String, Object> chat : allChats) {
-                String username = (String) chat.get("username");
-                if (username != null && username.toLowerCase().contains(searchQuery)) {
-                    filteredChats.add(chat);
-                }
-            }
-        }
-
-        adapter.notifyDataSetChanged();
-    }
-
     private void hideKeyboard() {
         if (getApplicationContext() == null || binding.searchEt == null) return;
 
@@ -223,45 +203,36 @@ public class SelectChatActivity extends AppCompatActivity {
         binding.chatsRv.setLayoutManager(new LinearLayoutManager(this));
         adapter = new SelectChatAdapter(filteredChats, this::forwardMessageToChat);
         binding.chatsRv.setAdapter(adapter);
+        chatSearch = new ChatSearch(filteredChats, adapter);
     }
 
     private void loadChats() {
-        chatsRef = FirebaseDatabase.getInstance().getReference("Chats");
+        chatsRef = InboxIndex.inboxRef(currentUserId);
 
         chatsListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                allChats.clear();
+                List<ChatListItem> items = new ArrayList<>();
 
-                for (DataSnapshot chatSnap : snapshot.getChildren()) {
-                    Chat chat = chatSnap.getValue(Chat.class);
-                    if (chat == null) continue;
-
-                    if (!currentUserId.equals(chat.getUser1()) &&
-                            !currentUserId.equals(chat.getUser2())) {
-                        continue;
-                    }
-
-                    String otherUid = currentUserId.equals(chat.getUser1())
-                            ? chat.getUser2()
-                            : chat.getUser1();
-                    String chatId = chatSnap.getKey();
+                for (DataSnapshot rowSnap : snapshot.getChildren()) {
+                    InboxEntry entry = InboxEntryCodec.fromSnapshot(rowSnap);
+                    if (entry == null || entry.getOtherUid() == null) continue;
 
+                    String chatId = entry.getChatId();
                     if (chatId != null && chatId.equals(sourceChatId)) continue;
 
-                    Map<String, Object> chatData = new HashMap<>();
-                    chatData.put("chatId", chatId);
-                    chatData.put("otherUid", otherUid);
-                    chatData.put("username", "Loading...");
-
-                    allChats.add(chatData);
+                    int previous = allChats.indexOf(chatId);
+                    items.add(previous != -1
+                            ? allChats.get(previous).withInbox(entry)
+                            : ChatListItem.fromInbox(entry));
                 }
+                allChats.setItems(items);
 
                 if (allChats.isEmpty()) {
                     Toast.makeText(SelectChatActivity.this, "No available chats", Toast.LENGTH_SHORT).show();
                 }
 
-                filterChats(binding.searchEt.getText().toString());
+                chatSearch.setItems(items);
                 loadUsernames();
             }
 
@@ -277,28 +248,21 @@ public class SelectChatActivity extends AppCompatActivity {
     private void loadUsernames() {
         if (allChats.isEmpty()) return;
 
-        for (Map<String, Object> chatData : allChats) {
-            String otherUid = (String) chatData.get("otherUid");
-            if (otherUid == null) continue;
-
-            FirebaseDatabase.getInstance()
-                    .getReference("Users")
-                    .child(otherUid)
-                    .child("username")
-                    .addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snap) {
-                            String username = snap.getValue(String.class);
-                            chatData.put("username", username != null ? username : "Unknown");
-                            filterChats(binding.searchEt.getText().toString());
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            chatData.put("username", "Unknown");
-                            filterChats(binding.searchEt.getText().toString());
-                        }
-                    });
+        for (ChatListItem chat : new ArrayList<>(allChats.getItems())) {
+            if (chat.isProfileLoaded()) continue;
+
+            String chatId = chat.chatId;
+            UserProfileCache.getInstance().request(chat.otherUid, profile -> {
+                int position = allChats.indexOf(chatId);
+                if (position == -1 || binding == null) return;
+
+                ChatListItem updated = allChats.get(position).withProfile(profile);
+                allChats.replace(updated);
+                chatSearch.replace(position, updated);
+
+                int visiblePosition = filteredChats.replace(updated);
+                if (visiblePosition != -1) adapter.notifyItemChanged(visiblePosition);
+            });
         }
     }
 
@@ -352,18 +316,22 @@ public class SelectChatActivity extends AppCompatActivity {
 
                 if ("voice".equals(fileType)) {
                     msg.put("voiceDuration", voiceDuration);
+                } else if ("video".equals(fileType)) {
+                    msg.put("videoDuration", videoDuration);
+                    if (thumbnailUrl != null) {
+                        msg.put("thumbnailUrl", thumbnailUrl);
+                    }
                 }
             }
         }
 
-        DatabaseReference messageRef = FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(targetChatId)
-                .child("messages")
-                .push();
-
-        messageRef.setValue(msg)
-                .addOnSuccessListener(aVoid -> updateLastMessage(targetChatId, now))
+        MessageSender.send(targetChatId, currentUserId, findOtherUid(targetChatId), msg, buildPreview())
+                .addOnSuccessListener(aVoid -> {
+                    String successMsg = isSharingContact ?
+                            "Contact shared successfully" : "The message has been forwarded";
+                    Toast.makeText(this, successMsg, Toast.LENGTH_SHORT).show();
+                    finish();
+                })
                 .addOnFailureListener(e -> {
                     isForwarding = false;
                     binding.backBtn.setEnabled(true);
@@ -372,10 +340,7 @@ public class SelectChatActivity extends AppCompatActivity {
                 });
     }
 
-    private void updateLastMessage(String targetChatId, long timestamp) {
-        HashMap<String, Object> update = new HashMap<>();
-        update.put("lastMessageTime", timestamp);
-
+    private String buildPreview() {
         String preview;
 
         if (isSharingContact) {
@@ -392,46 +357,12 @@ public class SelectChatActivity extends AppCompatActivity {
             preview = "📩 Forwarded from " + currentUsername;
         }
 
-        update.put("lastMessagePreview", preview);
-
-        FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(targetChatId)
-                .updateChildren(update)
-                .addOnSuccessListener(aVoid -> {
-                    String successMsg = isSharingContact ?
-                            "Contact shared successfully" : "The message has been forwarded";
-                    Toast.makeText(this, successMsg, Toast.LENGTH_SHORT).show();
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    String successMsg = isSharingContact ?
-                            "Contact shared successfully" : "The message has been forwarded";
-                    Toast.makeText(this, successMsg, Toast.LENGTH_SHORT).show();
-                    finish();
-                });
+        return preview;
     }
 
-    @NonNull
-    private HashMap<String, Object> getStringObjectHashMap(long timestamp) {
-        HashMap<String, Object> update = new HashMap<>();
-        update.put("lastMessageTime", timestamp);
-
-        String preview;
-        if (hasFile) {
-            if ("image".equals(fileType)) {
-                preview = "📩 Forwarded: 📷 Photo";
-            } else if ("voice".equals(fileType)) {
-                preview = "📩 Forwarded: 🎤 Voice message";
-            } else {
-                preview = "📩 Forwarded: 📄 " + fileName;
-            }
-        } else {
-            preview = "📩 Forwarded from " + currentUsername;
-        }
-
-        update.put("lastMessagePreview", preview);
-        return update;
+    private String findOtherUid(String chatId) {
+        int position = allChats.indexOf(chatId);
+        return position != -1 ? allChats.get(position).otherUid : null;
     }
 
     @Override
@@ -441,6 +372,9 @@ public class SelectChatActivity extends AppCompatActivity {
         if (chatsRef != null && chatsListener != null) {
             chatsRef.removeEventListener(chatsListener);
         }
+        if (chatSearch != null) {
+            chatSearch.release();
+        }
 
         binding = null;
     }
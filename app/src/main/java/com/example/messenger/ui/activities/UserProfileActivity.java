@@ -10,6 +10,8 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.bumptech.glide.Glide;
 import com.example.messenger.R;
+import com.example.messenger.data.chats.ChatPartners;
+import com.example.messenger.data.chats.InboxIndex;
 import com.example.messenger.databinding.ActivityUserProfileBinding;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
@@ -173,53 +175,64 @@ public class UserProfileActivity extends AppCompatActivity {
     }
 
     private void openOrCreateChat() {
+        ChatPartners.partnersRef(currentUserId).child(userId).get()
+                .addOnSuccessListener(snapshot -> {
+                    String chatId = snapshot.getValue(String.class);
+                    if (chatId != null) openChat(chatId);
+                    else findOrCreateChat();
+                })
+                .addOnFailureListener(e -> findOrCreateChat());
+    }
+
+    // Chats created before ChatPartners existed are only found by their id.
+    private void findOrCreateChat() {
         String chatId1 = currentUserId + "_" + userId;
         String chatId2 = userId + "_" + currentUserId;
 
         DatabaseReference chatsRef = FirebaseDatabase.getInstance().getReference("Chats");
 
-        chatsRef.child(chatId1).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot1) {
-                if (snapshot1.exists()) {
-                    openChat(chatId1);
-                } else {
-                    chatsRef.child(chatId2).addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snapshot2) {
-                            if (snapshot2.exists()) {
-                                openChat(chatId2);
-                            } else {
-                                createAndOpenChat(chatId1);
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            Toast.makeText(UserProfileActivity.this, "Error", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(UserProfileActivity.this, "Error", Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Only user1 is read: a cached "missing" answer would make createAndOpenChat() overwrite the chat,
+        // and reading the chat node itself would pull its whole history.
+        chatsRef.child(chatId1).child("user1").get()
+                .addOnSuccessListener(snapshot1 -> {
+                    if (snapshot1.exists()) {
+                        openChat(chatId1);
+                        return;
+                    }
+
+                    chatsRef.child(chatId2).child("user1").get()
+                            .addOnSuccessListener(snapshot2 -> {
+                                if (snapshot2.exists()) {
+                                    openChat(chatId2);
+                                } else {
+                                    createAndOpenChat(chatId1);
+                                }
+                            })
+                            .addOnFailureListener(e -> {
+                                Toast.makeText(UserProfileActivity.this, "Error", Toast.LENGTH_SHORT).show();
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Toast.makeText(UserProfileActivity.this, "Error", Toast.LENGTH_SHORT).show();
+                });
     }
 
     private void createAndOpenChat(String chatId) {
+        long now = System.currentTimeMillis();
+
         HashMap<String, Object> chatData = new HashMap<>();
         chatData.put("user1", currentUserId);
         chatData.put("user2", userId);
-        chatData.put("lastMessageTime", System.currentTimeMillis());
+        chatData.put("lastMessageTime", now);
         chatData.put("lastMessagePreview", "");
 
+        HashMap<String, Object> updates = new HashMap<>();
+        updates.put(InboxIndex.chatPath(chatId), chatData);
+        InboxIndex.putNewChat(updates, chatId, currentUserId, userId, now);
+
         FirebaseDatabase.getInstance()
-                .getReference("Chats")
-                .child(chatId)
-                .setValue(chatData)
+                .getReference()
+                .updateChildren(updates)
                 .addOnSuccessListener(aVoid -> openChat(chatId))
                 .addOnFailureListener(e -> {
                     Toast.makeText(this, "Chat creation error", Toast.LENGTH_SHORT).show();
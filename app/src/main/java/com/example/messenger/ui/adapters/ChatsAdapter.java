@@ -12,24 +12,20 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.messenger.ui.activities.ChatActivity;
 import com.example.messenger.R;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.example.messenger.data.chats.ChatList;
+import com.example.messenger.data.models.ChatListItem;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
 public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHolder> {
 
-    private List<Map<String, Object>> chats;
+    private final ChatList chats;
 
-    public ChatsAdapter(List<Map<String, Object>> chats) {
+    public ChatsAdapter(ChatList chats) {
         this.chats = chats;
     }
 
@@ -43,24 +39,17 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
 
     @Override
     public void onBindViewHolder(@NonNull ChatViewHolder holder, int position) {
-        Map<String, Object> chatData = chats.get(position);
+        ChatListItem chat = chats.get(position);
+        String chatId = chat.chatId;
 
-        String username = (String) chatData.get("username");
-        String chatId = (String) chatData.get("chatId");
-        String otherUid = (String) chatData.get("otherUid");
-        long lastMessageTime = (long) chatData.get("lastMessageTime");
-        Boolean isOnline = (Boolean) chatData.get("isOnline");
-        Long lastSeen = (Long) chatData.get("lastSeen");
-        int unreadCount = chatData.get("unreadCount") != null ? (int) chatData.get("unreadCount") : 0;
+        holder.usernameTv.setText(chat.isProfileLoaded() ? chat.username : "Loading...");
+        updateUserStatus(holder, chat.online, chat.lastSeen);
+        loadProfileImage(holder, chat.profileImageUrl);
 
-        holder.usernameTv.setText(username != null ? username : "Loading...");
-        updateUserStatus(holder, isOnline, lastSeen);
-        loadProfileImage(holder, otherUid);
+        holder.lastMessageTimeTv.setText(chat.lastMessageTime > 0 ? formatTime(chat.lastMessageTime) : "");
 
-        holder.lastMessageTimeTv.setText(lastMessageTime > 0 ? formatTime(lastMessageTime) : "");
-
-        if (unreadCount > 0) {
-            holder.unreadCountTv.setText(String.valueOf(unreadCount));
+        if (chat.unreadCount > 0) {
+            holder.unreadCountTv.setText(String.valueOf(chat.unreadCount));
             holder.unreadCountTv.setVisibility(View.VISIBLE);
         } else {
             holder.unreadCountTv.setVisibility(View.GONE);
@@ -75,14 +64,14 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
         });
     }
 
-    private void updateUserStatus(ChatViewHolder holder, Boolean isOnline, Long lastSeen) {
+    private void updateUserStatus(ChatViewHolder holder, boolean isOnline, long lastSeen) {
         if (holder.statusTv == null) return;
-        if (isOnline != null && isOnline) {
+        if (isOnline) {
             holder.statusTv.setText("Online");
             holder.statusTv.setTextColor(holder.itemView.getContext()
                     .getResources().getColor(android.R.color.holo_green_dark));
             holder.statusTv.setVisibility(View.VISIBLE);
-        } else if (lastSeen != null && lastSeen > 0) {
+        } else if (lastSeen > 0) {
             holder.statusTv.setText("Was " + getTimeAgo(lastSeen));
             holder.statusTv.setTextColor(holder.itemView.getContext()
                     .getResources().getColor(android.R.color.darker_gray));
@@ -108,34 +97,17 @@ public class ChatsAdapter extends RecyclerView.Adapter<ChatsAdapter.ChatViewHold
         else return new SimpleDateFormat("dd.MM.yyyy", Locale.getDefault()).format(new Date(timestamp));
     }
 
-    private void loadProfileImage(ChatViewHolder holder, String uid) {
-        if (uid == null) {
+    private void loadProfileImage(ChatViewHolder holder, String profileImageUrl) {
+        if (profileImageUrl != null && !profileImageUrl.isEmpty()) {
+            Glide.with(holder.itemView.getContext())
+                    .load(profileImageUrl)
+                    .placeholder(R.drawable.baseline_person_24)
+                    .error(R.drawable.baseline_person_24)
+                    .into(holder.profileImageView);
+        } else {
+            Glide.with(holder.itemView.getContext()).clear(holder.profileImageView);
             holder.profileImageView.setImageResource(R.drawable.baseline_person_24);
-            return;
         }
-
-        FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(uid)
-                .child("profileImageUrl")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        String imageUrl = snapshot.getValue(String.class);
-                        if (imageUrl != null && !imageUrl.isEmpty()) {
-                            Glide.with(holder.itemView.getContext())
-                                    .load(imageUrl)
-                                    .placeholder(R.drawable.baseline_person_24)
-                                    .error(R.drawable.baseline_person_24)
-                                    .into(holder.profileImageView);
-                        } else holder.profileImageView.setImageResource(R.drawable.baseline_person_24);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        holder.profileImageView.setImageResource(R.drawable.baseline_person_24);
-                    }
-                });
     }
 
     private String formatTime(long timestamp) {
@@ -19,23 +19,29 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.media.CloudinaryUrls;
 import com.example.messenger.ui.activities.ChatActivity;
 import com.example.messenger.ui.activities.MediaViewerActivity;
 import com.example.messenger.R;
 import com.example.messenger.ui.activities.SelectChatActivity;
 import com.example.messenger.ui.activities.UserProfileActivity;
 import com.example.messenger.data.models.Message;
+import com.example.messenger.data.users.UserProfileCache;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
@@ -54,27 +60,97 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
     private static final int TYPE_CONTACT_MY = 10;
     private static final int TYPE_CONTACT_OTHER = 11;
 
-    private List<Message> messages;
+    private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK = new DiffUtil.ItemCallback<Message>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            return Objects.equals(oldItem.getText(), newItem.getText())
+                    && oldItem.isEdited() == newItem.isEdited()
+                    && oldItem.isRead() == newItem.isRead()
+                    && Objects.equals(oldItem.getDate(), newItem.getDate())
+                    && Objects.equals(oldItem.getFileUrl(), newItem.getFileUrl())
+                    && Objects.equals(oldItem.getFileType(), newItem.getFileType())
+                    && Objects.equals(oldItem.getFileName(), newItem.getFileName())
+                    && oldItem.getFileSize() == newItem.getFileSize()
+                    && oldItem.getVoiceDuration() == newItem.getVoiceDuration()
+                    && oldItem.getVideoDuration() == newItem.getVideoDuration()
+                    && Objects.equals(oldItem.getThumbnailUrl(), newItem.getThumbnailUrl())
+                    && oldItem.isForwarded() == newItem.isForwarded()
+                    && Objects.equals(oldItem.getForwardedFrom(), newItem.getForwardedFrom())
+                    && Objects.equals(oldItem.getReplyToText(), newItem.getReplyToText())
+                    && Objects.equals(oldItem.getReplyToOwnerName(), newItem.getReplyToOwnerName())
+                    && Objects.equals(oldItem.getContactUsername(), newItem.getContactUsername())
+                    && Objects.equals(oldItem.getContactUserId(), newItem.getContactUserId());
+        }
+    };
+
+    private final AsyncListDiffer<Message> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final Map<String, Long> stableIds = new HashMap<>();
     private String chatId;
     private String currentUserId;
+    private String peerLastReadKey;
 
     private MediaPlayer currentPlayer;
     private VoiceMessageViewHolder currentPlayingHolder;
 
     public MessagesAdapter(List<Message> messages, String chatId) {
-        this.messages = messages;
         this.chatId = chatId;
         this.currentUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(messages));
     }
 
     public void updateMessages(List<Message> newMessages) {
-        this.messages = newMessages;
-        notifyDataSetChanged();
+        updateMessages(newMessages, null);
+    }
+
+    // The list is copied so later edits of the caller's list never race the background diff.
+    public void updateMessages(List<Message> newMessages, Runnable commitCallback) {
+        differ.submitList(new ArrayList<>(newMessages), commitCallback);
+    }
+
+    public void setPeerLastReadKey(String messageKey) {
+        String previous = peerLastReadKey;
+        if (Objects.equals(previous, messageKey)) return;
+        peerLastReadKey = messageKey;
+
+        // Rebind only my messages whose read state flipped.
+        List<Message> messages = differ.getCurrentList();
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (!message.isRead() && currentUserId.equals(message.getOwnerId())
+                    && isAtOrBefore(message.getId(), previous) != isAtOrBefore(message.getId(), messageKey)) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    private boolean isReadByPeer(Message message) {
+        return message.isRead() || isAtOrBefore(message.getId(), peerLastReadKey);
+    }
+
+    private static boolean isAtOrBefore(String messageKey, String watermark) {
+        return messageKey != null && watermark != null && messageKey.compareTo(watermark) <= 0;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String id = differ.getCurrentList().get(position).getId();
+        Long stableId = stableIds.get(id);
+        if (stableId == null) {
+            stableId = (long) stableIds.size();
+            stableIds.put(id, stableId);
+        }
+        return stableId;
     }
 
     @Override
     public int getItemViewType(int position) {
-        Message message = messages.get(position);
+        Message message = differ.getCurrentList().get(position);
         boolean isMy = message.getOwnerId().equals(currentUserId);
 
         if (message.isContact()) {
@@ -146,7 +222,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        Message message = messages.get(position);
+        Message message = differ.getCurrentList().get(position);
         boolean isMyMessage = message.getOwnerId().equals(currentUserId);
 
         if (holder instanceof TextMessageViewHolder) {
@@ -169,6 +245,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
         TextView contactNameTv, dateTv;
         TextView readStatusTv;
         View contactCard;
+        String boundUid;
 
         ContactMessageViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -222,23 +299,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
         holder.dateTv.setText(message.getDate());
         holder.editedTv.setVisibility(message.isEdited() ? View.VISIBLE : View.GONE);
 
-        if (isMyMessage && holder.readStatusTv != null) {
-            holder.readStatusTv.setVisibility(View.VISIBLE);
-
-            if (message.isRead()) {
-                holder.readStatusTv.setText("✓✓");
-                holder.readStatusTv.setTextColor(
-                        holder.itemView.getContext().getResources().getColor(android.R.color.holo_green_light)
-                );
-            } else {
-                holder.readStatusTv.setText("✓");
-                holder.readStatusTv.setTextColor(
-                        holder.itemView.getContext().getResources().getColor(android.R.color.darker_gray)
-                );
-            }
-        } else if (holder.readStatusTv != null) {
-            holder.readStatusTv.setVisibility(View.GONE);
-        }
+        updateReadStatus(holder.readStatusTv, message, isMyMessage, holder.itemView.getContext());
 
         holder.itemView.setOnLongClickListener(v -> {
             showMessageActionsSheet(v, message, isMyMessage);
@@ -254,8 +315,9 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
             holder.forwardedTv.setVisibility(View.GONE);
         }
 
-        Glide.with(holder.itemView.getContext())
-                .load(message.getFileUrl())
+        Context context = holder.itemView.getContext();
+        Glide.with(context)
+                .load(CloudinaryUrls.sized(context, message.getFileUrl(), AppConfig.Media.BUBBLE_WIDTH_DP))
                 .placeholder(R.drawable.ic_image_placeholder)
                 .error(R.drawable.ic_image_placeholder)
                 .into(holder.imageView);
@@ -294,8 +356,14 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
             holder.forwardedTv.setVisibility(View.GONE);
         }
 
-        Glide.with(holder.itemView.getContext())
-                .load(message.getFileUrl())
+        // Poster only: the video itself is not downloaded in the list.
+        String posterUrl = message.getThumbnailUrl() != null
+                ? message.getThumbnailUrl()
+                : CloudinaryUrls.videoPoster(message.getFileUrl());
+
+        Context context = holder.itemView.getContext();
+        Glide.with(context)
+                .load(CloudinaryUrls.sized(context, posterUrl, AppConfig.Media.BUBBLE_WIDTH_DP))
                 .placeholder(R.drawable.ic_image_placeholder)
                 .error(R.drawable.ic_image_placeholder)
                 .into(holder.videoThumbnail);
@@ -587,6 +655,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
                 intent.putExtra("voiceDuration", message.getVoiceDuration());
             } else if (message.isVideo()) {
                 intent.putExtra("videoDuration", message.getVideoDuration());
+                intent.putExtra("thumbnailUrl", message.getThumbnailUrl());
             }
         }
 
@@ -619,7 +688,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
     @Override
     public int getItemCount() {
-        return messages.size();
+        return differ.getCurrentList().size();
     }
 
     @Override
@@ -722,24 +791,16 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
     private void handleReply(View view, Message message) {
         String ownerId = message.getOwnerId();
 
-        FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(ownerId)
-                .child("username")
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    String ownerName = snapshot.getValue(String.class);
-                    if (ownerName == null) {
-                        ownerName = "User";
-                    }
+        UserProfileCache.getInstance().request(ownerId, profile -> {
+            String ownerName = profile != null ? profile.username : null;
+            if (ownerName == null) {
+                ownerName = "User";
+            }
 
-                    if (view.getContext() instanceof ChatActivity) {
-                        ((ChatActivity) view.getContext()).showReplyBlock(message, ownerName);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(view.getContext(), "Data upload error", Toast.LENGTH_SHORT).show();
-                });
+            if (view.getContext() instanceof ChatActivity) {
+                ((ChatActivity) view.getContext()).showReplyBlock(message, ownerName);
+            }
+        });
     }
 
     private void onReplyClick(Context ctx, Message message) {
@@ -747,6 +808,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
 
         Toast.makeText(ctx, "Going to the message", Toast.LENGTH_SHORT).show();
 
+        List<Message> messages = differ.getCurrentList();
         for (int i = 0; i < messages.size(); i++) {
             if (messages.get(i).getId().equals(message.getReplyToMessageId())) {
 
@@ -762,7 +824,7 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
         if (isMyMessage && readStatusTv != null) {
             readStatusTv.setVisibility(View.VISIBLE);
 
-            if (message.isRead()) {
+            if (isReadByPeer(message)) {
                 readStatusTv.setText("✓✓");
                 readStatusTv.setTextColor(context.getResources().getColor(android.R.color.holo_green_light));
             } else {
@@ -795,38 +857,28 @@ public class MessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolde
     }
 
     private void loadContactAvatar(ContactMessageViewHolder holder, String userId) {
+        holder.boundUid = userId;
         if (userId == null) {
             holder.contactAvatar.setImageResource(R.drawable.baseline_person_24);
             return;
         }
 
-        FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(userId)
-                .child("profileImageUrl")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        String imageUrl = snapshot.getValue(String.class);
-                        if (imageUrl != null && !imageUrl.isEmpty()) {
-                            Glide.with(holder.itemView.getContext())
-                                    .load(imageUrl)
-                                    .placeholder(R.drawable.baseline_person_24)
-                                    .error(R.drawable.baseline_person_24)
-                                    .into(holder.contactAvatar);
-                        } else {
-                            holder.contactAvatar.setImageResource(R.drawable.baseline_person_24);
-                        }
-                    }
+        UserProfileCache.getInstance().request(userId, profile -> {
+            if (!userId.equals(holder.boundUid)) return;
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        holder.contactAvatar.setImageResource(R.drawable.baseline_person_24);
-                    }
-                });
+            if (profile != null && profile.hasAvatar()) {
+                Glide.with(holder.itemView.getContext())
+                        .load(profile.profileImageUrl)
+                        .placeholder(R.drawable.baseline_person_24)
+                        .error(R.drawable.baseline_person_24)
+                        .into(holder.contactAvatar);
+            } else {
+                holder.contactAvatar.setImageResource(R.drawable.baseline_person_24);
+            }
+        });
     }
 
     public List<Message> getMessages() {
-        return messages;
+        return differ.getCurrentList();
     }
 }
\ No newline at end of file
@@ -10,26 +10,21 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.messenger.R;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-
-import java.util.List;
-import java.util.Map;
+import com.example.messenger.data.chats.ChatList;
+import com.example.messenger.data.models.ChatListItem;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
 public class SelectChatAdapter extends RecyclerView.Adapter<SelectChatAdapter.ViewHolder> {
 
-    private List<Map<String, Object>> chats;
+    private final ChatList chats;
     private OnChatSelectedListener listener;
 
     public interface OnChatSelectedListener {
         void onChatSelected(String chatId);
     }
 
-    public SelectChatAdapter(List<Map<String, Object>> chats, OnChatSelectedListener listener) {
+    public SelectChatAdapter(ChatList chats, OnChatSelectedListener listener) {
         this.chats = chats;
         this.listener = listener;
     }
@@ -44,14 +39,12 @@ public class SelectChatAdapter extends RecyclerView.Adapter<SelectChatAdapter.Vi
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Map<String, Object> chatData = chats.get(position);
-        String username = (String) chatData.get("username");
-        String chatId = (String) chatData.get("chatId");
-        String otherUid = (String) chatData.get("otherUid");
+        ChatListItem chat = chats.get(position);
+        String chatId = chat.chatId;
 
-        holder.usernameTv.setText(username != null ? username : "Unknown");
+        holder.usernameTv.setText(chat.isProfileLoaded() ? chat.username : "Loading...");
 
-        loadProfileImage(holder, otherUid);
+        loadProfileImage(holder, chat.profileImageUrl);
 
         holder.itemView.setOnClickListener(v -> {
             if (listener != null && chatId != null) {
@@ -60,37 +53,17 @@ public class SelectChatAdapter extends RecyclerView.Adapter<SelectChatAdapter.Vi
         });
     }
 
-    private void loadProfileImage(ViewHolder holder, String uid) {
-        if (uid == null) {
+    private void loadProfileImage(ViewHolder holder, String profileImageUrl) {
+        if (profileImageUrl != null && !profileImageUrl.isEmpty()) {
+            Glide.with(holder.itemView.getContext())
+                    .load(profileImageUrl)
+                    .placeholder(R.drawable.baseline_person_24)
+                    .error(R.drawable.baseline_person_24)
+                    .into(holder.profileIv);
+        } else {
+            Glide.with(holder.itemView.getContext()).clear(holder.profileIv);
             holder.profileIv.setImageResource(R.drawable.baseline_person_24);
-            return;
         }
-
-        FirebaseDatabase.getInstance()
-                .getReference("Users")
-                .child(uid)
-                .child("profileImageUrl")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        String imageUrl = snapshot.getValue(String.class);
-
-                        if (imageUrl != null && !imageUrl.isEmpty()) {
-                            Glide.with(holder.itemView.getContext())
-                                    .load(imageUrl)
-                                    .placeholder(R.drawable.baseline_person_24)
-                                    .error(R.drawable.baseline_person_24)
-                                    .into(holder.profileIv);
-                        } else {
-                            holder.profileIv.setImageResource(R.drawable.baseline_person_24);
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        holder.profileIv.setImageResource(R.drawable.baseline_person_24);
-                    }
-                });
     }
 
     @Override
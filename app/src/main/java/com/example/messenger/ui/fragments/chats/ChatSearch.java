@@ -0,0 +1,122 @@
+package com.example.messenger.ui.fragments.chats;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.chats.ChatList;
+import com.example.messenger.data.models.ChatListItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Filters a chat list by partner name off the main thread. Keystrokes are debounced,
+ * a query that was superseded before finishing is dropped, and the visible list is
+ * updated through a DiffUtil result instead of a full rebind. The search state itself
+ * lives in {@link ChatSearchState}; this class adds the threads and the adapter.
+ */
+public class ChatSearch {
+
+    private final ChatList shown;
+    private final RecyclerView.Adapter<?> adapter;
+    private final ChatSearchState state = new ChatSearchState();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedRun = this::run;
+
+    private boolean isReleased;
+
+    public ChatSearch(ChatList shown, RecyclerView.Adapter<?> adapter) {
+        this.shown = shown;
+        this.adapter = adapter;
+    }
+
+    // The source list changed: re-run the current query right away.
+    public void setItems(List<ChatListItem> newItems) {
+        state.setItems(newItems);
+        mainHandler.removeCallbacks(debouncedRun);
+        run();
+    }
+
+    // A single row changed (e.g. presence): patch the source without re-running the query,
+    // unless the name changed while a query is active.
+    public void replace(int position, ChatListItem item) {
+        if (state.replace(position, item)) {
+            mainHandler.removeCallbacks(debouncedRun);
+            mainHandler.postDelayed(debouncedRun, AppConfig.Search.DEBOUNCE_MS);
+        }
+    }
+
+    public void setQuery(String newQuery) {
+        state.setQuery(newQuery);
+        mainHandler.removeCallbacks(debouncedRun);
+        mainHandler.postDelayed(debouncedRun, AppConfig.Search.DEBOUNCE_MS);
+    }
+
+    public void release() {
+        isReleased = true;
+        mainHandler.removeCallbacks(debouncedRun);
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        if (isReleased) return;
+
+        ChatSearchState.Run run = state.start();
+        List<ChatListItem> previous = new ArrayList<>(shown.getItems());
+
+        executor.execute(() -> {
+            List<ChatListItem> results = state.filter(run);
+            if (!state.isCurrent(run)) return;
+
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new Diff(previous, results), false);
+            mainHandler.post(() -> {
+                if (isReleased || !state.isCurrent(run)) return;
+
+                List<Integer> patched = new ArrayList<>();
+                shown.setItems(state.withCurrentItems(run, results, patched));
+                diff.dispatchUpdatesTo(adapter);
+                for (int position : patched) {
+                    adapter.notifyItemChanged(position);
+                }
+            });
+        });
+    }
+
+    private static class Diff extends DiffUtil.Callback {
+        private final List<ChatListItem> oldItems;
+        private final List<ChatListItem> newItems;
+
+        Diff(List<ChatListItem> oldItems, List<ChatListItem> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldItems.get(oldPosition).chatId.equals(newItems.get(newPosition).chatId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return oldItems.get(oldPosition).hasSameContents(newItems.get(newPosition));
+        }
+    }
+}
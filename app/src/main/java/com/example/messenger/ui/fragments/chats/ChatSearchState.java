@@ -0,0 +1,114 @@
+package com.example.messenger.ui.fragments.chats;
+
+import com.example.messenger.data.models.ChatListItem;
+import com.example.messenger.utils.SearchKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The thread- and view-free part of {@link ChatSearch}: the source rows, the query, which
+ * run is current, the name filter and patching a finished run with rows replaced meanwhile.
+ * Everything except {@link #filter} is called on the main thread.
+ */
+class ChatSearchState {
+
+    // What a run started with; the source list is never modified once a run holds it.
+    static class Run {
+        final int generation;
+        final List<ChatListItem> source;
+        final String query;
+
+        Run(int generation, List<ChatListItem> source, String query) {
+            this.generation = generation;
+            this.source = source;
+            this.query = query;
+        }
+    }
+
+    // Executor thread only: username -> normalized name.
+    private final Map<String, String> normalizedNames = new HashMap<>();
+
+    private List<ChatListItem> items = new ArrayList<>();
+    private boolean isItemsShared;
+    private String query = "";
+    private volatile int generation;
+
+    void setItems(List<ChatListItem> newItems) {
+        items = new ArrayList<>(newItems);
+        isItemsShared = false;
+    }
+
+    void setQuery(String newQuery) {
+        query = newQuery != null ? newQuery : "";
+    }
+
+    // Returns true when the row's name changed under an active query, so the query has to run again.
+    boolean replace(int position, ChatListItem item) {
+        if (position < 0 || position >= items.size()) return false;
+
+        if (isItemsShared) {
+            items = new ArrayList<>(items);
+            isItemsShared = false;
+        }
+        ChatListItem old = items.set(position, item);
+
+        return !query.trim().isEmpty() && !Objects.equals(old.username, item.username);
+    }
+
+    Run start() {
+        isItemsShared = true;
+        return new Run(++generation, items, query);
+    }
+
+    // A newer run supersedes this one; its results are dropped.
+    boolean isCurrent(Run run) {
+        return run.generation == generation;
+    }
+
+    List<ChatListItem> filter(Run run) {
+        String key = SearchKeys.normalize(run.query);
+        if (key.isEmpty()) return run.source;
+
+        if (normalizedNames.size() > run.source.size() * 4) {
+            normalizedNames.clear();
+        }
+
+        List<ChatListItem> results = new ArrayList<>();
+        for (ChatListItem item : run.source) {
+            if (item.username == null) continue;
+
+            String name = normalizedNames.get(item.username);
+            if (name == null) {
+                name = SearchKeys.normalize(item.username);
+                normalizedNames.put(item.username, name);
+            }
+            if (name.contains(key)) results.add(item);
+        }
+        return results;
+    }
+
+    // Rows replaced while the run was in flight would otherwise be reverted to their old copies.
+    // Positions that were swapped are added to patched.
+    List<ChatListItem> withCurrentItems(Run run, List<ChatListItem> results, List<Integer> patched) {
+        if (run.source == items) return results;
+
+        Map<String, ChatListItem> current = new HashMap<>();
+        for (ChatListItem item : items) {
+            current.put(item.chatId, item);
+        }
+
+        List<ChatListItem> updated = new ArrayList<>(results);
+        for (int i = 0; i < updated.size(); i++) {
+            ChatListItem item = current.get(updated.get(i).chatId);
+            if (item != null && item != updated.get(i)) {
+                updated.set(i, item);
+                patched.add(i);
+            }
+        }
+        return updated;
+    }
+}
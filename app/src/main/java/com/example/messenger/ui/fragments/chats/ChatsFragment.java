@@ -12,11 +12,18 @@ import android.widget.EditText;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.DividerItemDecoration;
 
 import com.example.messenger.R;
-import com.example.messenger.data.models.Chat;
+import com.example.messenger.data.chats.ChatList;
+import com.example.messenger.data.chats.InboxIndex;
+import com.example.messenger.data.models.ChatListItem;
+import com.example.messenger.data.models.InboxEntry;
+import com.example.messenger.data.models.InboxEntryCodec;
+import com.example.messenger.data.sync.ListenerRegistry;
+import com.example.messenger.data.users.UserProfileCache;
 import com.example.messenger.ui.adapters.ChatsAdapter;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.*;
@@ -28,13 +35,13 @@ public class ChatsFragment extends Fragment {
     private androidx.recyclerview.widget.RecyclerView chatsRv;
     private EditText searchEt;
 
-    private final ArrayList<Map<String, Object>> chats = new ArrayList<>();
-    private final ArrayList<Map<String, Object>> filteredChats = new ArrayList<>();
+    private final ChatList chats = new ChatList();
+    private final ChatList filteredChats = new ChatList();
 
     private ChatsAdapter chatsAdapter;
+    private ChatSearch chatSearch;
     private String myUid;
-    private DatabaseReference unreadRef;
-    private ValueEventListener unreadListener;
+    private final Set<String> subscribedUids = new HashSet<>();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle state) {
@@ -50,6 +57,7 @@ public class ChatsFragment extends Fragment {
 
         chatsAdapter = new ChatsAdapter(filteredChats);
         chatsRv.setAdapter(chatsAdapter);
+        chatSearch = new ChatSearch(filteredChats, chatsAdapter);
 
         loadChats();
         setupSearch();
@@ -57,6 +65,12 @@ public class ChatsFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (chatSearch != null) chatSearch.release();
+    }
+
     @SuppressLint("ClickableViewAccessibility")
     private void setupSearch() {
         updateClearIcon(false);
@@ -68,7 +82,7 @@ public class ChatsFragment extends Fragment {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 updateClearIcon(s.length() > 0);
-                applyFilter(s.toString());
+                chatSearch.setQuery(s.toString());
             }
 
             @Override
@@ -96,103 +110,71 @@ public class ChatsFragment extends Fragment {
     }
 
     private void loadChats() {
-        FirebaseDatabase.getInstance().getReference("Chats")
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        chats.clear();
-
-                        for (DataSnapshot chatSnap : snapshot.getChildren()) {
-                            Chat chat = chatSnap.getValue(Chat.class);
-                            if (chat == null) continue;
-                            if (!myUid.equals(chat.getUser1()) && !myUid.equals(chat.getUser2())) continue;
-
-                            String otherUid = myUid.equals(chat.getUser1()) ? chat.getUser2() : chat.getUser1();
-                            String chatId = chatSnap.getKey();
-                            Long lastMessageTime = chatSnap.child("lastMessageTime").getValue(Long.class);
-                            Long unreadCount = chatSnap.child("unreadCount").child(myUid).getValue(Long.class);
-
-                            Map<String, Object> chatData = new HashMap<>();
-                            chatData.put("chatId", chatId);
-                            chatData.put("otherUid", otherUid);
-                            chatData.put("chat", chat);
-                            chatData.put("lastMessageTime", lastMessageTime != null ? lastMessageTime : 0L);
-                            chatData.put("username", "Loading...");
-                            chatData.put("profileImageUrl", null);
-                            chatData.put("isOnline", false);
-                            chatData.put("lastSeen", 0L);
-                            chatData.put("unreadCount", unreadCount != null ? unreadCount.intValue() : 0);
-
-                            chats.add(chatData);
-                        }
-
-                        sortChats();
-                        applyFilter(searchEt.getText().toString());
-                        loadUsernames();
+        ListenerRegistry.getInstance().subscribe(getViewLifecycleOwner(),
+                InboxIndex.ROOT + "/" + myUid, snapshot -> {
+                    List<ChatListItem> items = new ArrayList<>();
+
+                    for (DataSnapshot rowSnap : snapshot.getChildren()) {
+                        InboxEntry entry = InboxEntryCodec.fromSnapshot(rowSnap);
+                        if (entry == null || entry.getOtherUid() == null) continue;
+
+                        int previous = chats.indexOf(entry.getChatId());
+                        items.add(previous != -1
+                                ? chats.get(previous).withInbox(entry)
+                                : ChatListItem.fromInbox(entry));
                     }
 
-                    @Override public void onCancelled(@NonNull DatabaseError error) {}
+                    items.sort((a, b) -> Long.compare(b.lastMessageTime, a.lastMessageTime));
+                    chats.setItems(items);
+                    chatSearch.setItems(items);
+                    loadUsernames();
                 });
     }
 
+    // One registry subscription per partner, shared across inbox updates and dropped with the view.
     private void loadUsernames() {
-        if (chats.isEmpty()) return;
-        FirebaseDatabase db = FirebaseDatabase.getInstance();
-
-        for (Map<String, Object> chatData : chats) {
-            String otherUid = (String) chatData.get("otherUid");
-
-            db.getReference("Users").child(otherUid)
-                    .addValueEventListener(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snap) {
-                            String username = snap.child("username").getValue(String.class);
-                            String profileImageUrl = snap.child("profileImageUrl").getValue(String.class);
-                            Boolean isOnline = snap.child("online").getValue(Boolean.class);
-                            Long lastSeen = snap.child("lastSeen").getValue(Long.class);
-
-                            chatData.put("username", username != null ? username : "Unknown");
-                            chatData.put("profileImageUrl", profileImageUrl);
-                            chatData.put("isOnline", isOnline != null ? isOnline : false);
-                            chatData.put("lastSeen", lastSeen != null ? lastSeen : 0L);
-
-                            int position = chats.indexOf(chatData);
-                            if (position != -1) chatsAdapter.notifyItemChanged(position);
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            chatData.put("username", "Unknown");
-                            chatData.put("isOnline", false);
-                            chatData.put("lastSeen", 0L);
-                            int position = chats.indexOf(chatData);
-                            if (position != -1) chatsAdapter.notifyItemChanged(position);
-                        }
-                    });
+        ListenerRegistry registry = ListenerRegistry.getInstance();
+        LifecycleOwner owner = getViewLifecycleOwner();
+
+        Set<String> currentUids = new HashSet<>();
+        for (ChatListItem item : chats.getItems()) {
+            currentUids.add(item.otherUid);
         }
-    }
 
-    private void sortChats() {
-        chats.sort((a, b) -> {
-            long t1 = (long) a.get("lastMessageTime");
-            long t2 = (long) b.get("lastMessageTime");
-            return Long.compare(t2, t1);
-        });
+        for (String uid : subscribedUids) {
+            if (!currentUids.contains(uid)) registry.unsubscribe(owner, UserProfileCache.path(uid));
+        }
+        subscribedUids.clear();
+        subscribedUids.addAll(currentUids);
+
+        for (String otherUid : currentUids) {
+            registry.subscribe(owner, UserProfileCache.path(otherUid), new ListenerRegistry.Subscriber() {
+                @Override
+                public void onData(@NonNull DataSnapshot snap) {
+                    UserProfileCache.Profile profile = snap.exists()
+                            ? UserProfileCache.toProfile(otherUid, snap)
+                            : null;
+                    applyProfile(otherUid, profile);
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    applyProfile(otherUid, null);
+                }
+            });
+        }
     }
 
-    private void applyFilter(String query) {
-        String text = query.toLowerCase(Locale.ROOT).trim();
-        filteredChats.clear();
+    private void applyProfile(String otherUid, UserProfileCache.Profile profile) {
+        int position = chats.indexOfPartner(otherUid);
+        if (position == -1) return;
 
-        if (text.isEmpty()) filteredChats.addAll(chats);
-        else {
-            for (Map<String, Object> chat : chats) {
-                String username = (String) chat.get("username");
-                if (username != null && username.toLowerCase(Locale.ROOT).contains(text)) filteredChats.add(chat);
-            }
-        }
+        ChatListItem updated = chats.get(position).withProfile(profile);
+        chats.replace(updated);
+        chatSearch.replace(position, updated);
 
-        chatsAdapter.notifyDataSetChanged();
+        int visiblePosition = filteredChats.replace(updated);
+        if (visiblePosition != -1) chatsAdapter.notifyItemChanged(visiblePosition);
     }
 
     private void updateClearIcon(boolean show) {
@@ -2,6 +2,8 @@ package com.example.messenger.ui.fragments.new_chat;
 
 import android.annotation.SuppressLint;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.LayoutInflater;
@@ -15,25 +17,39 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.messenger.R;
+import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.chats.ChatPartners;
+import com.example.messenger.data.users.UserDirectory;
 import com.example.messenger.databinding.FragmentNewChatBinding;
 import com.example.messenger.data.models.User;
 import com.example.messenger.ui.adapters.UsersAdapter;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Locale;
 
 public class NewChatFragment extends Fragment {
 
     private FragmentNewChatBinding binding;
-    private ArrayList<User> allUsers = new ArrayList<>();
-    private ArrayList<User> filteredUsers = new ArrayList<>();
+    private final ArrayList<User> users = new ArrayList<>();
     private UsersAdapter adapter;
+    private LinearLayoutManager layoutManager;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::reloadUsers;
+
+    private String myUid;
+    private ChatPartners chatPartners;
+
+    // Paging cursor
+    private String query = "";
+    private String lastKey;
+    private String lastUid;
+    private boolean hasMore = true;
+    private boolean isLoading = false;
+    private int generation = 0;
 
     @Nullable
     @Override
@@ -43,13 +59,16 @@ public class NewChatFragment extends Fragment {
 
         binding = FragmentNewChatBinding.inflate(inflater, container, false);
 
-        adapter = new UsersAdapter(filteredUsers);
+        myUid = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        adapter = new UsersAdapter(users);
+        layoutManager = new LinearLayoutManager(getContext());
 
-        binding.usersRv.setLayoutManager(new LinearLayoutManager(getContext()));
+        binding.usersRv.setLayoutManager(layoutManager);
         binding.usersRv.addItemDecoration(new DividerItemDecoration(getContext(), DividerItemDecoration.VERTICAL));
         binding.usersRv.setAdapter(adapter);
 
-        loadUsers();
+        setupScrollListener();
+        loadChatPartners();
         setupSearch();
 
         return binding.getRoot();
@@ -67,7 +86,9 @@ public class NewChatFragment extends Fragment {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 updateClearIcon(s.length() > 0);
-                filterUsers(s.toString());
+                query = s.toString().trim();
+                searchHandler.removeCallbacks(searchRunnable);
+                searchHandler.postDelayed(searchRunnable, AppConfig.Search.DEBOUNCE_MS);
             }
 
             @Override
@@ -116,24 +137,6 @@ public class NewChatFragment extends Fragment {
         return touchX >= clearIconStart;
     }
 
-    private void filterUsers(String query) {
-        String searchQuery = query.toLowerCase(Locale.ROOT).trim();
-
-        filteredUsers.clear();
-
-        if (searchQuery.isEmpty()) {
-            filteredUsers.addAll(allUsers);
-        } else {
-            for (User user : allUsers) {
-                if (user.username.toLowerCase(Locale.ROOT).contains(searchQuery)) {
-                    filteredUsers.add(user);
-                }
-            }
-        }
-
-        adapter.notifyDataSetChanged();
-    }
-
     private void hideKeyboard() {
         if (getContext() == null || binding.searchEt == null) return;
 
@@ -146,75 +149,96 @@ public class NewChatFragment extends Fragment {
         }
     }
 
-    private void loadUsers() {
-        String myUid = FirebaseAuth.getInstance().getCurrentUser().getUid();
-
-        FirebaseDatabase.getInstance()
-                .getReference()
-                .child("Users")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-
-                        allUsers.clear();
-
-                        for (DataSnapshot snap : snapshot.getChildren()) {
-                            String uid = snap.getKey();
-                            if (uid == null || uid.equals(myUid)) continue;
-
-                            String username = snap.child("username").getValue(String.class);
-                            if (username == null) continue;
+    private void setupScrollListener() {
+        binding.usersRv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                super.onScrolled(recyclerView, dx, dy);
 
-                            String profileImageUrl = snap.child("profileImageUrl").getValue(String.class);
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= layoutManager.getItemCount() - AppConfig.Users.DIRECTORY_LOAD_MORE_THRESHOLD) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
 
-                            allUsers.add(new User(uid, username, profileImageUrl));
-                        }
+    private void loadChatPartners() {
+        chatPartners = new ChatPartners(myUid);
+        chatPartners.start(new ChatPartners.Listener() {
+            @Override
+            public void onLoaded() {
+                reloadUsers();
+            }
 
-                        filterExistingChats(myUid);
+            @Override
+            public void onPartnerAdded(String otherUid) {
+                for (int i = 0; i < users.size(); i++) {
+                    if (users.get(i).uid.equals(otherUid)) {
+                        users.remove(i);
+                        adapter.notifyItemRemoved(i);
+                        return;
                     }
-
-                    @Override
-                    public void onCancelled(@NonNull com.google.firebase.database.DatabaseError error) {}
-                });
+                }
+            }
+        });
     }
 
-    private void filterExistingChats(String myUid) {
-        FirebaseDatabase.getInstance()
-                .getReference()
-                .child("Chats")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot chatsSnapshot) {
+    private void reloadUsers() {
+        if (binding == null || !chatPartners.isLoaded()) return;
+
+        generation++;
+        lastKey = null;
+        lastUid = null;
+        hasMore = true;
+        isLoading = false;
 
-                        if (getView() == null || binding == null) return;
+        users.clear();
+        adapter.notifyDataSetChanged();
+        loadNextPage();
+    }
 
-                        ArrayList<User> usersWithoutChats = new ArrayList<>();
+    // Pages come from the server already filtered by name prefix; only users who
+    // already have a chat with me are dropped locally.
+    private void loadNextPage() {
+        if (isLoading || !hasMore || !chatPartners.isLoaded()) return;
 
-                        for (User user : allUsers) {
-                            String chatId1 = myUid + "_" + user.uid;
-                            String chatId2 = user.uid + "_" + myUid;
+        isLoading = true;
+        int requestGeneration = generation;
+        int pageSize = AppConfig.Users.DIRECTORY_PAGE_SIZE;
 
-                            if (!chatsSnapshot.hasChild(chatId1) && !chatsSnapshot.hasChild(chatId2)) {
-                                usersWithoutChats.add(user);
-                            }
-                        }
+        UserDirectory.page(query, lastKey, lastUid, pageSize).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (binding == null || requestGeneration != generation) return;
+                    isLoading = false;
 
-                        allUsers.clear();
-                        allUsers.addAll(usersWithoutChats);
+                    int start = users.size();
+                    for (DataSnapshot snap : snapshot.getChildren()) {
+                        lastKey = UserDirectory.keyOf(snap);
+                        lastUid = snap.getKey();
 
-                        String query = binding.searchEt != null ? binding.searchEt.getText().toString() : "";
-                        filterUsers(query);
+                        User user = UserDirectory.fromSnapshot(snap);
+                        if (user == null || user.uid.equals(myUid) || chatPartners.contains(user.uid)) continue;
+                        users.add(user);
                     }
+                    hasMore = snapshot.getChildrenCount() >= pageSize && lastKey != null;
+                    adapter.notifyItemRangeInserted(start, users.size() - start);
 
-                    @Override
-                    public void onCancelled(@NonNull com.google.firebase.database.DatabaseError error) {}
+                    if (hasMore && layoutManager.findLastVisibleItemPosition()
+                            >= users.size() - AppConfig.Users.DIRECTORY_LOAD_MORE_THRESHOLD) {
+                        loadNextPage();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (requestGeneration == generation) isLoading = false;
                 });
     }
 
-
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        searchHandler.removeCallbacks(searchRunnable);
+        chatPartners.stop();
         binding = null;
     }
 }
\ No newline at end of file
@@ -26,6 +26,8 @@ import com.example.messenger.ui.activities.LoginActivity;
 import com.example.messenger.ui.activities.MediaViewerActivity;
 import com.example.messenger.R;
 import com.example.messenger.config.AppConfig;
+import com.example.messenger.data.sync.SyncMode;
+import com.example.messenger.data.users.UserDirectory;
 import com.example.messenger.databinding.FragmentProfileBinding;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
@@ -36,6 +38,7 @@ import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -70,21 +73,12 @@ public class ProfileFragment extends Fragment {
                              @Nullable Bundle savedInstanceState) {
         binding = FragmentProfileBinding.inflate(inflater, container, false);
 
-        initializeCloudinary();
         setupViews();
         loadUserData();
 
         return binding.getRoot();
     }
 
-    private void initializeCloudinary() {
-        try {
-            MediaManager.init(requireContext(), AppConfig.getCloudinaryConfig());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     private void setupViews() {
         if (FirebaseAuth.getInstance().getCurrentUser() == null) {
             return;
@@ -105,6 +99,10 @@ public class ProfileFragment extends Fragment {
         binding.editPhoneBtn.setOnClickListener(v -> showEditPhoneDialog());
 
         binding.editBirthdayBtn.setOnClickListener(v -> showDatePickerDialog());
+
+        binding.batterySaverSwitch.setChecked(SyncMode.isBatched(requireContext()));
+        binding.batterySaverSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                SyncMode.set(requireContext(), isChecked ? SyncMode.BATCHED : SyncMode.LIVE));
     }
 
     private void loadUserData() {
@@ -214,34 +212,30 @@ public class ProfileFragment extends Fragment {
                 .orderByChild("username")
                 .equalTo(username);
 
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                boolean isUnique = true;
-                for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                    if (!userSnapshot.getKey().equals(currentUserId)) {
-                        isUnique = false;
-                        break;
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    boolean isUnique = true;
+                    for (DataSnapshot userSnapshot : snapshot.getChildren()) {
+                        if (!userSnapshot.getKey().equals(currentUserId)) {
+                            isUnique = false;
+                            break;
+                        }
                     }
-                }
 
-                if (isUnique) {
-                    updateField("username", username);
-                    dialog.dismiss();
-                } else {
+                    if (isUnique) {
+                        updateField("username", username);
+                        dialog.dismiss();
+                    } else {
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "This username is already taken", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> {
                     if (getContext() != null) {
-                        Toast.makeText(getContext(), "This username is already taken", Toast.LENGTH_SHORT).show();
+                        Toast.makeText(getContext(), "Verification error. Try again later", Toast.LENGTH_SHORT).show();
                     }
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Verification error. Try again later", Toast.LENGTH_SHORT).show();
-                }
-            }
-        });
+                });
     }
 
     private void showEditPhoneDialog() {
@@ -323,7 +317,13 @@ public class ProfileFragment extends Fragment {
             return;
         }
 
-        userRef.child(field).setValue(value)
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("Users/" + currentUserId + "/" + field, value);
+        if ("username".equals(field)) {
+            UserDirectory.putUsername(updates, currentUserId, value);
+        }
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                     if (getContext() != null) {
                         Toast.makeText(getContext(), "The data has been updated", Toast.LENGTH_SHORT).show();
@@ -377,7 +377,11 @@ public class ProfileFragment extends Fragment {
     private void saveImageUrlToFirebase(String imageUrl) {
         if (userRef == null) return;
 
-        userRef.child("profileImageUrl").setValue(imageUrl)
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("Users/" + currentUserId + "/profileImageUrl", imageUrl);
+        UserDirectory.putProfileImage(updates, currentUserId, imageUrl);
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                 })
                 .addOnFailureListener(e -> {
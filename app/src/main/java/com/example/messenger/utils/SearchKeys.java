@@ -0,0 +1,20 @@
+package com.example.messenger.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds names for searching: lower case, without diacritics ("Ёлка" and "ёлка" both become "елка").
+ */
+public class SearchKeys {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{Mn}+");
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
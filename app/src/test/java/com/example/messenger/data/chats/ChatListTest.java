@@ -0,0 +1,79 @@
+package com.example.messenger.data.chats;
+
+import com.example.messenger.data.models.ChatListItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ChatListTest {
+
+    private ChatList list;
+
+    @Before
+    public void setUp() {
+        list = new ChatList();
+        list.setItems(Arrays.asList(item("c1", "u1", 30), item("c2", "u2", 20), item("c3", "u3", 10)));
+    }
+
+    @Test
+    public void indexOf_followsDisplayOrder() {
+        assertEquals(0, list.indexOf("c1"));
+        assertEquals(1, list.indexOf("c2"));
+        assertEquals(2, list.indexOf("c3"));
+        assertEquals(-1, list.indexOf("missing"));
+        assertEquals(-1, list.indexOf(null));
+    }
+
+    @Test
+    public void indexOfPartner_mapsThroughChatId() {
+        assertEquals(1, list.indexOfPartner("u2"));
+        assertEquals(-1, list.indexOfPartner("nobody"));
+        assertEquals(-1, list.indexOfPartner(null));
+    }
+
+    @Test
+    public void setItems_rebuildsIndex() {
+        list.setItems(Arrays.asList(item("c3", "u3", 40), item("c1", "u1", 30)));
+
+        assertEquals(2, list.size());
+        assertEquals(0, list.indexOf("c3"));
+        assertEquals(1, list.indexOf("c1"));
+        assertEquals(-1, list.indexOf("c2"));
+        assertEquals(-1, list.indexOfPartner("u2"));
+    }
+
+    @Test
+    public void setItems_emptyClearsEverything() {
+        list.setItems(Collections.emptyList());
+
+        assertTrue(list.isEmpty());
+        assertEquals(-1, list.indexOf("c1"));
+        assertEquals(-1, list.indexOfPartner("u1"));
+    }
+
+    @Test
+    public void replace_keepsPosition() {
+        ChatListItem updated = item("c2", "u2", 99);
+
+        assertEquals(1, list.replace(updated));
+        assertSame(updated, list.get(1));
+        assertEquals(1, list.indexOf("c2"));
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    public void replace_unknownChatIsIgnored() {
+        assertEquals(-1, list.replace(item("c9", "u9", 5)));
+        assertEquals(3, list.size());
+        assertEquals(-1, list.indexOf("c9"));
+    }
+
+    private static ChatListItem item(String chatId, String otherUid, long lastMessageTime) {
+        return new ChatListItem(chatId, otherUid, lastMessageTime, 0, null, null, false, 0L);
+    }
+}
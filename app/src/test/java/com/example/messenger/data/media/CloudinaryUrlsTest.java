@@ -0,0 +1,67 @@
+package com.example.messenger.data.media;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CloudinaryUrlsTest {
+
+    private static final String IMAGE = "https://res.cloudinary.com/demo/image/upload/v1/chat_images/x.jpg";
+    private static final String VIDEO = "https://res.cloudinary.com/demo/video/upload/v1/chat_videos/clip.mp4";
+
+    @Test
+    public void transform_insertsAfterUploadSegment() {
+        assertEquals("https://res.cloudinary.com/demo/image/upload/w_480,c_limit/v1/chat_images/x.jpg",
+                CloudinaryUrls.transform(IMAGE, "w_480,c_limit"));
+    }
+
+    @Test
+    public void transform_leavesOtherUrlsUnchanged() {
+        String other = "https://example.com/upload/x.jpg";
+        assertEquals(other, CloudinaryUrls.transform(other, "w_480"));
+
+        String fetch = "https://res.cloudinary.com/demo/image/fetch/x.jpg";
+        assertEquals(fetch, CloudinaryUrls.transform(fetch, "w_480"));
+
+        assertNull(CloudinaryUrls.transform(null, "w_480"));
+    }
+
+    @Test
+    public void bucket_snapsUpToNextWidth() {
+        assertEquals(240, CloudinaryUrls.bucket(1));
+        assertEquals(240, CloudinaryUrls.bucket(240));
+        assertEquals(360, CloudinaryUrls.bucket(241));
+        assertEquals(720, CloudinaryUrls.bucket(700));
+    }
+
+    @Test
+    public void bucket_capsAtLargestWidth() {
+        assertEquals(1280, CloudinaryUrls.bucket(1280));
+        assertEquals(1280, CloudinaryUrls.bucket(4000));
+    }
+
+    @Test
+    public void sizedPx_usesBucketedWidth() {
+        assertEquals("https://res.cloudinary.com/demo/image/upload/w_720,c_limit,q_auto,f_auto/v1/chat_images/x.jpg",
+                CloudinaryUrls.sizedPx(IMAGE, 700));
+    }
+
+    @Test
+    public void videoPoster_firstFrameAsJpeg() {
+        assertEquals("https://res.cloudinary.com/demo/video/upload/so_0/v1/chat_videos/clip.jpg",
+                CloudinaryUrls.videoPoster(VIDEO));
+    }
+
+    @Test
+    public void videoPoster_withoutExtension() {
+        assertEquals("https://res.cloudinary.com/demo/video/upload/so_0/v1/chat_videos/clip.jpg",
+                CloudinaryUrls.videoPoster("https://res.cloudinary.com/demo/video/upload/v1/chat_videos/clip"));
+    }
+
+    @Test
+    public void videoPoster_nullForNonVideos() {
+        assertNull(CloudinaryUrls.videoPoster(IMAGE));
+        assertNull(CloudinaryUrls.videoPoster("https://example.com/video/upload/clip.mp4"));
+        assertNull(CloudinaryUrls.videoPoster(null));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.messenger.data.media;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImagePreprocessorTest {
+
+    @Test
+    public void sampleSize_smallImageIsNotSubsampled() {
+        assertEquals(1, ImagePreprocessor.sampleSize(800, 600, 1600));
+        assertEquals(1, ImagePreprocessor.sampleSize(1600, 1200, 1600));
+    }
+
+    @Test
+    public void sampleSize_justUnderTwiceTheEdgeIsNotSubsampled() {
+        assertEquals(1, ImagePreprocessor.sampleSize(3199, 2000, 1600));
+    }
+
+    @Test
+    public void sampleSize_stopsBeforeGoingBelowMaxEdge() {
+        assertEquals(2, ImagePreprocessor.sampleSize(3200, 2400, 1600));
+        assertEquals(2, ImagePreprocessor.sampleSize(4032, 3024, 1600));
+        assertEquals(4, ImagePreprocessor.sampleSize(8000, 6000, 1600));
+    }
+
+    @Test
+    public void sampleSize_usesLongEdgeForPortrait() {
+        assertEquals(ImagePreprocessor.sampleSize(4032, 3024, 1600),
+                ImagePreprocessor.sampleSize(3024, 4032, 1600));
+    }
+}
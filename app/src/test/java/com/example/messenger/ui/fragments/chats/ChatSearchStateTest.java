@@ -0,0 +1,122 @@
+package com.example.messenger.ui.fragments.chats;
+
+import com.example.messenger.data.models.ChatListItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChatSearchStateTest {
+
+    private ChatSearchState state;
+
+    @Before
+    public void setUp() {
+        state = new ChatSearchState();
+        state.setItems(Arrays.asList(item("c1", "Alice", false), item("c2", "Bob", false),
+                item("c3", "Alina", false)));
+    }
+
+    @Test
+    public void filter_matchesFoldedNames() {
+        state.setQuery("ALI");
+        ChatSearchState.Run run = state.start();
+
+        assertEquals(Arrays.asList("c1", "c3"), chatIds(state.filter(run)));
+    }
+
+    @Test
+    public void filter_emptyQueryReturnsSource() {
+        state.setQuery("  ");
+        ChatSearchState.Run run = state.start();
+
+        assertSame(run.source, state.filter(run));
+    }
+
+    @Test
+    public void filter_skipsRowsWithoutProfile() {
+        state.setItems(Arrays.asList(item("c1", null, false), item("c2", "Bob", false)));
+        state.setQuery("b");
+
+        assertEquals(Collections.singletonList("c2"), chatIds(state.filter(state.start())));
+    }
+
+    @Test
+    public void start_supersedesEarlierRun() {
+        ChatSearchState.Run first = state.start();
+        ChatSearchState.Run second = state.start();
+
+        assertFalse(state.isCurrent(first));
+        assertTrue(state.isCurrent(second));
+    }
+
+    @Test
+    public void replace_duringRunLeavesRunSourceAlone() {
+        ChatListItem online = item("c2", "Bob", true);
+        ChatSearchState.Run run = state.start();
+
+        state.replace(1, online);
+
+        assertFalse(run.source.get(1).online);
+    }
+
+    @Test
+    public void withCurrentItems_swapsInRowsReplacedDuringRun() {
+        state.setQuery("b");
+        ChatSearchState.Run run = state.start();
+        List<ChatListItem> results = state.filter(run);
+
+        ChatListItem online = item("c2", "Bob", true);
+        state.replace(1, online);
+
+        List<Integer> patched = new ArrayList<>();
+        List<ChatListItem> shown = state.withCurrentItems(run, results, patched);
+
+        assertSame(online, shown.get(0));
+        assertEquals(Collections.singletonList(0), patched);
+    }
+
+    @Test
+    public void withCurrentItems_untouchedRunIsReturnedAsIs() {
+        ChatSearchState.Run run = state.start();
+        List<ChatListItem> results = state.filter(run);
+
+        List<Integer> patched = new ArrayList<>();
+
+        assertSame(results, state.withCurrentItems(run, results, patched));
+        assertTrue(patched.isEmpty());
+    }
+
+    @Test
+    public void replace_asksForRerunOnlyWhenNameChangesUnderQuery() {
+        assertFalse(state.replace(0, item("c1", "Alicia", false)));
+
+        state.setQuery("ali");
+        assertFalse(state.replace(0, item("c1", "Alicia", true)));
+        assertTrue(state.replace(0, item("c1", "Zoe", true)));
+    }
+
+    @Test
+    public void replace_outOfRangeIsIgnored() {
+        assertFalse(state.replace(3, item("c4", "Dan", false)));
+        assertFalse(state.replace(-1, item("c4", "Dan", false)));
+    }
+
+    private static ChatListItem item(String chatId, String username, boolean online) {
+        return new ChatListItem(chatId, "u_" + chatId, 0L, 0, username, null, online, 0L);
+    }
+
+    private static List<String> chatIds(List<ChatListItem> items) {
+        List<String> ids = new ArrayList<>();
+        for (ChatListItem item : items) {
+            ids.add(item.chatId);
+        }
+        return ids;
+    }
+}
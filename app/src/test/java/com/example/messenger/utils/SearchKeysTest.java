@@ -0,0 +1,34 @@
+package com.example.messenger.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchKeysTest {
+
+    @Test
+    public void normalize_lowercases() {
+        assertEquals("alice", SearchKeys.normalize("ALiCe"));
+    }
+
+    @Test
+    public void normalize_trims() {
+        assertEquals("bob", SearchKeys.normalize("  Bob \t"));
+    }
+
+    @Test
+    public void normalize_foldsCyrillicYo() {
+        assertEquals("елка", SearchKeys.normalize("Ёлка"));
+        assertEquals(SearchKeys.normalize("ёлка"), SearchKeys.normalize("Елка"));
+    }
+
+    @Test
+    public void normalize_dropsLatinDiacritics() {
+        assertEquals("jose muller", SearchKeys.normalize("José Müller"));
+    }
+
+    @Test
+    public void normalize_nullIsEmpty() {
+        assertEquals("", SearchKeys.normalize(null));
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.messenger.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates {@code <Model>Codec} classes for models annotated with {@link FirebaseCodec}.
+ * Every non-static field is mapped to the database key of the same name and accessed
+ * either directly (public fields) or through its bean getter and setter.
+ */
+public class CodecProcessor extends AbstractProcessor {
+
+    private static final String MAP_TYPE = "java.util.Map";
+
+    private enum Kind {
+        STRING("java.lang.String"),
+        LONG("java.lang.Long"),
+        INT("java.lang.Integer"),
+        DOUBLE("java.lang.Double"),
+        BOOLEAN("java.lang.Boolean"),
+        OBJECT("java.lang.Object"),
+        MAP(null);
+
+        final String boxedName;
+
+        Kind(String boxedName) {
+            this.boxedName = boxedName;
+        }
+    }
+
+    private static class Property {
+        String name;
+        Kind kind;
+        Kind mapValueKind;
+        boolean primitive;
+        boolean isKey;
+        String getter;
+        String setter;
+        boolean publicField;
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        types.add(FirebaseCodec.class.getCanonicalName());
+        types.add(SnapshotKey.class.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(FirebaseCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@FirebaseCodec can only be applied to classes");
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+            List<Property> properties = collectProperties(type);
+            if (properties == null) continue;
+
+            try {
+                writeCodec(type, properties);
+            } catch (IOException e) {
+                error(type, "Failed to write codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private List<Property> collectProperties(TypeElement type) {
+        if (!hasNoArgConstructor(type)) {
+            error(type, "@FirebaseCodec models need a no-arg constructor");
+            return null;
+        }
+
+        List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        List<Property> properties = new ArrayList<>();
+        boolean valid = true;
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+
+            Property property = new Property();
+            property.name = field.getSimpleName().toString();
+            property.isKey = field.getAnnotation(SnapshotKey.class) != null;
+
+            TypeMirror fieldType = field.asType();
+            property.primitive = fieldType.getKind().isPrimitive();
+            property.kind = kindOf(fieldType);
+            if (property.kind == Kind.MAP) {
+                property.mapValueKind = mapValueKind(fieldType);
+            }
+
+            if (property.kind == null || (property.kind == Kind.MAP && property.mapValueKind == null)) {
+                error(field, "Unsupported field type for @FirebaseCodec: " + fieldType);
+                valid = false;
+                continue;
+            }
+
+            if (property.isKey && property.kind != Kind.STRING) {
+                error(field, "@SnapshotKey fields must be Strings");
+                valid = false;
+                continue;
+            }
+
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.FINAL)) {
+                property.publicField = true;
+            } else {
+                property.getter = findGetter(methods, property.name);
+                property.setter = findSetter(methods, property.name);
+                if (property.getter == null || property.setter == null) {
+                    error(field, "No public getter/setter pair found for field " + property.name);
+                    valid = false;
+                    continue;
+                }
+            }
+
+            properties.add(property);
+        }
+
+        return valid ? properties : null;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Kind kindOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case LONG:
+                return Kind.LONG;
+            case INT:
+                return Kind.INT;
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case DECLARED:
+                String name = erasedName(type);
+                if (MAP_TYPE.equals(name)) return Kind.MAP;
+                for (Kind kind : Kind.values()) {
+                    if (name.equals(kind.boxedName)) return kind;
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private Kind mapValueKind(TypeMirror type) {
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        if (arguments.size() != 2 || !"java.lang.String".equals(erasedName(arguments.get(0)))) {
+            return null;
+        }
+
+        TypeMirror valueType = arguments.get(1);
+        if (valueType.getKind() != TypeKind.DECLARED) return null;
+
+        Kind kind = kindOf(valueType);
+        return kind == Kind.MAP ? null : kind;
+    }
+
+    private String erasedName(TypeMirror type) {
+        Element element = processingEnv.getTypeUtils().asElement(type);
+        return element instanceof TypeElement
+                ? ((TypeElement) element).getQualifiedName().toString()
+                : type.toString();
+    }
+
+    private String findGetter(List<ExecutableElement> methods, String field) {
+        String capitalized = capitalize(field);
+        String[] candidates = {"get" + capitalized, "is" + capitalized, field, "get" + stripIs(field)};
+        for (String candidate : candidates) {
+            for (ExecutableElement method : methods) {
+                if (isPublicInstance(method)
+                        && method.getSimpleName().contentEquals(candidate)
+                        && method.getParameters().isEmpty()
+                        && method.getReturnType().getKind() != TypeKind.VOID) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(List<ExecutableElement> methods, String field) {
+        String[] candidates = {"set" + capitalize(field), "set" + stripIs(field)};
+        for (String candidate : candidates) {
+            for (ExecutableElement method : methods) {
+                if (isPublicInstance(method)
+                        && method.getSimpleName().contentEquals(candidate)
+                        && method.getParameters().size() == 1) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isPublicInstance(ExecutableElement method) {
+        return method.getModifiers().contains(Modifier.PUBLIC)
+                && !method.getModifiers().contains(Modifier.STATIC);
+    }
+
+    // isEdited -> Edited, so the setter lookup also finds setEdited().
+    private String stripIs(String field) {
+        if (field.length() > 2 && field.startsWith("is") && Character.isUpperCase(field.charAt(2))) {
+            return field.substring(2);
+        }
+        return capitalize(field);
+    }
+
+    private String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private void writeCodec(TypeElement type, List<Property> properties) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.getQualifiedName().toString();
+        String model = type.getSimpleName().toString();
+        String codec = model + "Codec";
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import com.google.firebase.database.DataSnapshot;\n\n");
+        out.append("import java.util.HashMap;\n");
+        out.append("import java.util.Map;\n\n");
+        out.append("/**\n * Generated by CodecProcessor from {@link ").append(model).append("}. Do not edit.\n */\n");
+        out.append("public final class ").append(codec).append(" {\n\n");
+        out.append("    private ").append(codec).append("() {}\n\n");
+
+        out.append("    public static ").append(model).append(" fromSnapshot(DataSnapshot snapshot) {\n");
+        out.append("        if (snapshot == null || !snapshot.hasChildren()) return null;\n\n");
+        // One getValue() materializes the whole node; per-field child() lookups would walk it again each time.
+        out.append("        Object raw = snapshot.getValue();\n");
+        out.append("        return raw instanceof Map ? fromMap(snapshot.getKey(), (Map<?, ?>) raw) : null;\n");
+        out.append("    }\n\n");
+
+        out.append("    public static ").append(model).append(" fromMap(String key, Map<?, ?> map) {\n");
+        out.append("        if (map == null) return null;\n\n");
+        out.append("        ").append(model).append(" value = new ").append(model).append("();\n");
+        out.append("        Object raw;\n");
+        for (Property property : properties) {
+            if (property.isKey) {
+                out.append("        ").append(assign(property, "key")).append(";\n");
+                continue;
+            }
+            out.append("        raw = map.get(\"").append(property.name).append("\");\n");
+            appendRead(out, property);
+        }
+        out.append("        return value;\n");
+        out.append("    }\n\n");
+
+        out.append("    public static Map<String, Object> toMap(").append(model).append(" value) {\n");
+        out.append("        Map<String, Object> map = new HashMap<>();\n");
+        for (Property property : properties) {
+            if (property.isKey) continue;
+            String read = property.publicField ? "value." + property.name : "value." + property.getter + "()";
+            if (property.primitive) {
+                out.append("        map.put(\"").append(property.name).append("\", ").append(read).append(");\n");
+            } else {
+                out.append("        if (").append(read).append(" != null) map.put(\"")
+                        .append(property.name).append("\", ").append(read).append(");\n");
+            }
+        }
+        out.append("        return map;\n");
+        out.append("    }\n");
+
+        Set<Kind> mapKinds = new LinkedHashSet<>();
+        for (Property property : properties) {
+            if (property.kind == Kind.MAP) mapKinds.add(property.mapValueKind);
+        }
+        for (Kind kind : mapKinds) {
+            appendMapReader(out, kind);
+        }
+
+        out.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + codec, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void appendRead(StringBuilder out, Property property) {
+        String condition;
+        String converted;
+
+        switch (property.kind) {
+            case STRING:
+                condition = "raw instanceof String";
+                converted = "(String) raw";
+                break;
+            case LONG:
+                condition = "raw instanceof Number";
+                converted = "((Number) raw).longValue()";
+                break;
+            case INT:
+                condition = "raw instanceof Number";
+                converted = "((Number) raw).intValue()";
+                break;
+            case DOUBLE:
+                condition = "raw instanceof Number";
+                converted = "((Number) raw).doubleValue()";
+                break;
+            case BOOLEAN:
+                condition = "raw instanceof Boolean";
+                converted = "(Boolean) raw";
+                break;
+            case MAP:
+                condition = "raw instanceof Map";
+                converted = mapReaderName(property.mapValueKind) + "((Map<?, ?>) raw)";
+                break;
+            default:
+                condition = "raw != null";
+                converted = "raw";
+                break;
+        }
+
+        out.append("        if (").append(condition).append(") ")
+                .append(assign(property, converted)).append(";\n");
+    }
+
+    private String assign(Property property, String expression) {
+        if (property.publicField) {
+            return "value." + property.name + " = " + expression;
+        }
+        return "value." + property.setter + "(" + expression + ")";
+    }
+
+    private String mapReaderName(Kind valueKind) {
+        return "readMapOf" + valueKind.name().charAt(0) + valueKind.name().substring(1).toLowerCase();
+    }
+
+    private void appendMapReader(StringBuilder out, Kind valueKind) {
+        String valueType = valueKind.boxedName.substring("java.lang.".length());
+        String check;
+        String converted;
+
+        switch (valueKind) {
+            case LONG:
+                check = "entry.getValue() instanceof Number";
+                converted = "((Number) entry.getValue()).longValue()";
+                break;
+            case INT:
+                check = "entry.getValue() instanceof Number";
+                converted = "((Number) entry.getValue()).intValue()";
+                break;
+            case DOUBLE:
+                check = "entry.getValue() instanceof Number";
+                converted = "((Number) entry.getValue()).doubleValue()";
+                break;
+            case OBJECT:
+                check = "entry.getValue() != null";
+                converted = "entry.getValue()";
+                break;
+            default:
+                check = "entry.getValue() instanceof " + valueType;
+                converted = "(" + valueType + ") entry.getValue()";
+                break;
+        }
+
+        out.append("\n    private static Map<String, ").append(valueType).append("> ")
+                .append(mapReaderName(valueKind)).append("(Map<?, ?> raw) {\n");
+        out.append("        Map<String, ").append(valueType).append("> result = new HashMap<>();\n");
+        out.append("        for (Map.Entry<?, ?> entry : raw.entrySet()) {\n");
+        out.append("            if (entry.getKey() instanceof String && ").append(check).append(") {\n");
+        out.append("                result.put((String) entry.getKey(), ").append(converted).append(");\n");
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        return result;\n");
+        out.append("    }\n");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
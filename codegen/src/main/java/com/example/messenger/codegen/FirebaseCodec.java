@@ -0,0 +1,16 @@
+package com.example.messenger.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@code <Model>Codec} next to the annotated model that reads it from a
+ * snapshot (or its value map) and writes it back as a {@code Map<String, Object>},
+ * without going through Firebase's reflection-based class mapper.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface FirebaseCodec {
+}
@@ -0,0 +1,15 @@
+package com.example.messenger.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field that holds the snapshot key. It is filled from the key on read
+ * and left out of the written map.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface SnapshotKey {
+}
@@ -0,0 +1,212 @@
+package com.example.messenger.codegen;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.*;
+
+public class CodecProcessorTest {
+
+    // Just enough of the Firebase class for the generated fromSnapshot() to compile.
+    private static final JavaFileObject DATA_SNAPSHOT = JavaFileObjects.forSourceLines(
+            "com.google.firebase.database.DataSnapshot",
+            "package com.google.firebase.database;",
+            "public class DataSnapshot {",
+            "    public boolean hasChildren() { return false; }",
+            "    public Object getValue() { return null; }",
+            "    public String getKey() { return null; }",
+            "}");
+
+    private static final JavaFileObject NOTE = JavaFileObjects.forSourceLines(
+            "test.Note",
+            "package test;",
+            "import com.example.messenger.codegen.FirebaseCodec;",
+            "import com.example.messenger.codegen.SnapshotKey;",
+            "import java.util.Map;",
+            "@FirebaseCodec",
+            "public class Note {",
+            "    @SnapshotKey private String id;",
+            "    private String text;",
+            "    private long timestamp;",
+            "    private boolean isPinned;",
+            "    private Integer rank;",
+            "    private Map<String, Boolean> tags;",
+            "    public String color;",
+            "    public Note() {}",
+            "    public String getId() { return id; }",
+            "    public void setId(String id) { this.id = id; }",
+            "    public String getText() { return text; }",
+            "    public void setText(String text) { this.text = text; }",
+            "    public long getTimestamp() { return timestamp; }",
+            "    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }",
+            "    public boolean isPinned() { return isPinned; }",
+            "    public void setPinned(boolean pinned) { isPinned = pinned; }",
+            "    public Integer getRank() { return rank; }",
+            "    public void setRank(Integer rank) { this.rank = rank; }",
+            "    public Map<String, Boolean> getTags() { return tags; }",
+            "    public void setTags(Map<String, Boolean> tags) { this.tags = tags; }",
+            "}");
+
+    @Test
+    public void fromMap_readsEveryField() throws Exception {
+        ClassLoader loader = load(compile(NOTE));
+
+        Map<String, Object> tags = new HashMap<>();
+        tags.put("work", true);
+        tags.put("broken", "yes");
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", "Hello");
+        map.put("timestamp", 42);
+        map.put("isPinned", true);
+        map.put("rank", 3L);
+        map.put("tags", tags);
+        map.put("color", "red");
+
+        Object note = fromMap(loader, "-Nkey", map);
+
+        assertEquals("-Nkey", get(note, "getId"));
+        assertEquals("Hello", get(note, "getText"));
+        assertEquals(42L, get(note, "getTimestamp"));
+        assertEquals(true, get(note, "isPinned"));
+        assertEquals(3, get(note, "getRank"));
+        assertEquals(Collections.singletonMap("work", true), get(note, "getTags"));
+        assertEquals("red", note.getClass().getField("color").get(note));
+    }
+
+    @Test
+    public void fromMap_skipsMistypedAndMissingValues() throws Exception {
+        ClassLoader loader = load(compile(NOTE));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("text", 7);
+        map.put("timestamp", "soon");
+
+        Object note = fromMap(loader, "k", map);
+
+        assertNull(get(note, "getText"));
+        assertEquals(0L, get(note, "getTimestamp"));
+        assertNull(get(note, "getRank"));
+        assertNull(fromMap(loader, "k", null));
+    }
+
+    @Test
+    public void toMap_leavesOutKeyAndNulls() throws Exception {
+        ClassLoader loader = load(compile(NOTE));
+
+        Map<String, Object> source = new HashMap<>();
+        source.put("text", "Hello");
+        source.put("timestamp", 42L);
+        Object note = fromMap(loader, "-Nkey", source);
+
+        Map<?, ?> map = (Map<?, ?>) loader.loadClass("test.NoteCodec")
+                .getMethod("toMap", note.getClass())
+                .invoke(null, note);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("text", "Hello");
+        expected.put("timestamp", 42L);
+        expected.put("isPinned", false);
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void fromSnapshot_readsTheNodeOnce() {
+        Compilation compilation = compile(NOTE);
+
+        assertThat(compilation).generatedSourceFile("test.NoteCodec")
+                .contentsAsUtf8String()
+                .contains("Object raw = snapshot.getValue();\n"
+                        + "        return raw instanceof Map ? fromMap(snapshot.getKey(), (Map<?, ?>) raw) : null;");
+    }
+
+    @Test
+    public void nonStringKey_isRejected() {
+        JavaFileObject model = JavaFileObjects.forSourceLines(
+                "test.Bad",
+                "package test;",
+                "import com.example.messenger.codegen.FirebaseCodec;",
+                "import com.example.messenger.codegen.SnapshotKey;",
+                "@FirebaseCodec",
+                "public class Bad {",
+                "    @SnapshotKey public long id;",
+                "    public Bad() {}",
+                "}");
+
+        Compilation compilation = javac().withProcessors(new CodecProcessor()).compile(DATA_SNAPSHOT, model);
+
+        assertThat(compilation).hadErrorContaining("@SnapshotKey fields must be Strings");
+    }
+
+    @Test
+    public void missingNoArgConstructor_isRejected() {
+        JavaFileObject model = JavaFileObjects.forSourceLines(
+                "test.Bad",
+                "package test;",
+                "import com.example.messenger.codegen.FirebaseCodec;",
+                "@FirebaseCodec",
+                "public class Bad {",
+                "    public String name;",
+                "    public Bad(String name) { this.name = name; }",
+                "}");
+
+        Compilation compilation = javac().withProcessors(new CodecProcessor()).compile(DATA_SNAPSHOT, model);
+
+        assertThat(compilation).hadErrorContaining("no-arg constructor");
+    }
+
+    private static Compilation compile(JavaFileObject model) {
+        Compilation compilation = javac().withProcessors(new CodecProcessor()).compile(DATA_SNAPSHOT, model);
+        assertThat(compilation).succeededWithoutWarnings();
+        return compilation;
+    }
+
+    private static Object fromMap(ClassLoader loader, String key, Map<String, Object> map) throws Exception {
+        return loader.loadClass("test.NoteCodec")
+                .getMethod("fromMap", String.class, Map.class)
+                .invoke(null, key, map);
+    }
+
+    private static Object get(Object target, String getter) throws Exception {
+        return target.getClass().getMethod(getter).invoke(target);
+    }
+
+    // Defines the compiled classes straight from the in-memory output.
+    private static ClassLoader load(Compilation compilation) throws IOException {
+        Map<String, byte[]> classes = new HashMap<>();
+        for (JavaFileObject file : compilation.generatedFiles()) {
+            if (file.getKind() != JavaFileObject.Kind.CLASS) continue;
+
+            String path = file.toUri().getPath();
+            String name = path.substring(path.indexOf("/CLASS_OUTPUT/") + "/CLASS_OUTPUT/".length(),
+                    path.length() - ".class".length()).replace('/', '.');
+            try (InputStream in = file.openInputStream()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                in.transferTo(bytes);
+                classes.put(name, bytes.toByteArray());
+            }
+        }
+
+        return new ClassLoader(CodecProcessorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) throw new ClassNotFoundException(name);
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+}